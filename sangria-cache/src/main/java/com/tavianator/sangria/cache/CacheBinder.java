@@ -0,0 +1,368 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.cache;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.Binder;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.BindingTargetVisitor;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProviderWithExtensionVisitor;
+import com.google.inject.util.Types;
+
+import com.tavianator.sangria.core.DelayedError;
+import com.tavianator.sangria.core.PotentialAnnotation;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Binder for Guava {@link LoadingCache} instances, whose {@link CacheLoader} is itself injected:
+ *
+ * <pre>
+ * CacheBinder.create(binder())
+ *         .bind(String.class, User.class)
+ *         .annotatedWith(Names.named("users"))
+ *         .maximumSize(10000)
+ *         .expireAfterWrite(10, TimeUnit.MINUTES)
+ *         .loadedBy(UserLoader.class);
+ *
+ * ...
+ *
+ * {@literal @}Inject {@literal @}Named("users") LoadingCache&lt;String, User&gt; users;
+ * </pre>
+ *
+ * <p>
+ * Statistics are always recorded, and are available along with the rest of the configuration through the {@link
+ * CacheBinding} SPI. The options come before {@code loadedBy()}, which creates the binding, so a binding's
+ * configuration never changes once it exists. The {@link CacheLoader} itself isn't provisioned until the cache first
+ * loads a value.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class CacheBinder {
+    private static final Class<?>[] SKIPPED_SOURCES = {
+            CacheBinder.class,
+            BindingBuilder.class,
+    };
+
+    private final Binder binder;
+
+    private CacheBinder(Binder binder) {
+        this.binder = binder;
+    }
+
+    /**
+     * Create a {@link CacheBinder}.
+     *
+     * @param binder The {@link Binder} to use.
+     * @return A {@link CacheBinder} instance.
+     */
+    public static CacheBinder create(Binder binder) {
+        return new CacheBinder(binder.skipSources(SKIPPED_SOURCES));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> TypeLiteral<LoadingCache<K, V>> loadingCacheOf(TypeLiteral<K> keyType, TypeLiteral<V> valueType) {
+        return (TypeLiteral<LoadingCache<K, V>>)TypeLiteral.get(
+                Types.newParameterizedType(LoadingCache.class, keyType.getType(), valueType.getType()));
+    }
+
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     */
+    public <K, V> AnnotatedCacheBindingBuilder<K, V> bind(Class<K> keyType, Class<V> valueType) {
+        return bind(TypeLiteral.get(keyType), TypeLiteral.get(valueType));
+    }
+
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     */
+    public <K, V> AnnotatedCacheBindingBuilder<K, V> bind(TypeLiteral<K> keyType, TypeLiteral<V> valueType) {
+        return new BindingBuilder<>(keyType, valueType, PotentialAnnotation.none(), Options.DEFAULT);
+    }
+
+    /**
+     * The cache options, with -1 for unset.
+     */
+    private static class Options {
+        static final Options DEFAULT = new Options(-1, -1, -1);
+
+        final long maximumSize;
+        final long expireAfterWriteNanos;
+        final long expireAfterAccessNanos;
+
+        Options(long maximumSize, long expireAfterWriteNanos, long expireAfterAccessNanos) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWriteNanos = expireAfterWriteNanos;
+            this.expireAfterAccessNanos = expireAfterAccessNanos;
+        }
+    }
+
+    /**
+     * Fluent binding builder implementation.
+     */
+    private class BindingBuilder<K, V> implements AnnotatedCacheBindingBuilder<K, V> {
+        private final TypeLiteral<K> keyType;
+        private final TypeLiteral<V> valueType;
+        private final PotentialAnnotation potentialAnnotation;
+        private final Options options;
+        private final Key<LoadingCache<K, V>> cacheKey;
+        private final DelayedError error;
+
+        BindingBuilder(
+                TypeLiteral<K> keyType,
+                TypeLiteral<V> valueType,
+                PotentialAnnotation potentialAnnotation,
+                Options options) {
+            this.keyType = keyType;
+            this.valueType = valueType;
+            this.potentialAnnotation = potentialAnnotation;
+            this.options = options;
+            this.cacheKey = potentialAnnotation.getKey(loadingCacheOf(keyType, valueType));
+            this.error = DelayedError.create(binder, "Missing call to loadedBy() for %s", cacheKey);
+        }
+
+        @Override
+        public CacheBindingBuilder<K, V> annotatedWith(Class<? extends Annotation> annotationType) {
+            error.cancel();
+            return new BindingBuilder<>(keyType, valueType, potentialAnnotation.annotatedWith(annotationType), options);
+        }
+
+        @Override
+        public CacheBindingBuilder<K, V> annotatedWith(Annotation annotation) {
+            error.cancel();
+            return new BindingBuilder<>(keyType, valueType, potentialAnnotation.annotatedWith(annotation), options);
+        }
+
+        @Override
+        public CacheBindingBuilder<K, V> maximumSize(long maximumSize) {
+            checkArgument(maximumSize >= 0, "maximumSize must be non-negative");
+            error.cancel();
+            return new BindingBuilder<>(keyType, valueType, potentialAnnotation, new Options(
+                    maximumSize, options.expireAfterWriteNanos, options.expireAfterAccessNanos));
+        }
+
+        @Override
+        public CacheBindingBuilder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+            checkArgument(duration >= 0, "duration must be non-negative");
+            error.cancel();
+            return new BindingBuilder<>(keyType, valueType, potentialAnnotation, new Options(
+                    options.maximumSize, unit.toNanos(duration), options.expireAfterAccessNanos));
+        }
+
+        @Override
+        public CacheBindingBuilder<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+            checkArgument(duration >= 0, "duration must be non-negative");
+            error.cancel();
+            return new BindingBuilder<>(keyType, valueType, potentialAnnotation, new Options(
+                    options.maximumSize, options.expireAfterWriteNanos, unit.toNanos(duration)));
+        }
+
+        @Override
+        public void loadedBy(Class<? extends CacheLoader<? super K, V>> loaderType) {
+            loadedBy(Key.get(loaderType));
+        }
+
+        @Override
+        public void loadedBy(TypeLiteral<? extends CacheLoader<? super K, V>> loaderType) {
+            loadedBy(Key.get(loaderType));
+        }
+
+        @Override
+        public void loadedBy(Key<? extends CacheLoader<? super K, V>> loaderKey) {
+            error.cancel();
+
+            CacheProvider<K, V> provider = new CacheProvider<>(
+                    keyType, valueType, loaderKey, binder.getProvider(loaderKey), options);
+            binder.bind(cacheKey)
+                    .toProvider(provider);
+        }
+    }
+
+    /**
+     * {@link CacheLoader} that provisions the real loader the first time it's needed.
+     */
+    private static class DeferredLoader<K, V> extends CacheLoader<K, V> {
+        private final Provider<? extends CacheLoader<? super K, V>> provider;
+        private volatile CacheLoader<? super K, V> delegate;
+
+        DeferredLoader(Provider<? extends CacheLoader<? super K, V>> provider) {
+            this.provider = provider;
+        }
+
+        private CacheLoader<? super K, V> delegate() {
+            CacheLoader<? super K, V> result = delegate;
+            if (result == null) {
+                // Racing threads may each provision a loader, but only one of them is kept
+                result = delegate = provider.get();
+            }
+            return result;
+        }
+
+        @Override
+        public V load(K key) throws Exception {
+            return delegate().load(key);
+        }
+
+        @Override
+        public ListenableFuture<V> reload(K key, V oldValue) throws Exception {
+            return delegate().reload(key, oldValue);
+        }
+
+        @SuppressWarnings("unchecked") // The delegate only returns entries for the requested keys
+        @Override
+        public Map<K, V> loadAll(Iterable<? extends K> keys) throws Exception {
+            return (Map<K, V>)delegate().loadAll(keys);
+        }
+    }
+
+    private static class CacheProvider<K, V>
+            implements CacheBinding<K, V>, ProviderWithExtensionVisitor<LoadingCache<K, V>> {
+        private final TypeLiteral<K> keyType;
+        private final TypeLiteral<V> valueType;
+        private final Key<? extends CacheLoader<? super K, V>> loaderKey;
+        private final Provider<? extends CacheLoader<? super K, V>> loaderProvider;
+        private final long maximumSize;
+        private final long expireAfterWriteNanos;
+        private final long expireAfterAccessNanos;
+        private volatile LoadingCache<K, V> cache = null;
+
+        CacheProvider(
+                TypeLiteral<K> keyType,
+                TypeLiteral<V> valueType,
+                Key<? extends CacheLoader<? super K, V>> loaderKey,
+                Provider<? extends CacheLoader<? super K, V>> loaderProvider,
+                Options options) {
+            this.keyType = keyType;
+            this.valueType = valueType;
+            this.loaderKey = loaderKey;
+            this.loaderProvider = loaderProvider;
+            this.maximumSize = options.maximumSize;
+            this.expireAfterWriteNanos = options.expireAfterWriteNanos;
+            this.expireAfterAccessNanos = options.expireAfterAccessNanos;
+        }
+
+        @Inject
+        void initialize() {
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                    .recordStats();
+            if (maximumSize >= 0) {
+                builder.maximumSize(maximumSize);
+            }
+            if (expireAfterWriteNanos >= 0) {
+                builder.expireAfterWrite(expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+            }
+            if (expireAfterAccessNanos >= 0) {
+                builder.expireAfterAccess(expireAfterAccessNanos, TimeUnit.NANOSECONDS);
+            }
+
+            cache = builder.build(new DeferredLoader<K, V>(loaderProvider));
+        }
+
+        @Override
+        public LoadingCache<K, V> get() {
+            return cache;
+        }
+
+        @Override
+        public TypeLiteral<K> getKeyType() {
+            return keyType;
+        }
+
+        @Override
+        public TypeLiteral<V> getValueType() {
+            return valueType;
+        }
+
+        @Override
+        public Key<? extends CacheLoader<? super K, V>> getLoaderKey() {
+            return loaderKey;
+        }
+
+        @Override
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        @Override
+        public long getExpireAfterWrite(TimeUnit unit) {
+            return expireAfterWriteNanos < 0 ? -1 : unit.convert(expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public long getExpireAfterAccess(TimeUnit unit) {
+            return expireAfterAccessNanos < 0 ? -1 : unit.convert(expireAfterAccessNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public CacheStats getStats() {
+            LoadingCache<K, V> current = cache;
+            if (current == null) {
+                return new CacheStats(0, 0, 0, 0, 0, 0);
+            } else {
+                return current.stats();
+            }
+        }
+
+        @SuppressWarnings("unchecked") // B must be LoadingCache<K, V>
+        @Override
+        public <B, R> R acceptExtensionVisitor(BindingTargetVisitor<B, R> visitor, ProviderInstanceBinding<? extends B> binding) {
+            if (visitor instanceof CacheBindingVisitor) {
+                return ((CacheBindingVisitor<B, R>)visitor).visit(this);
+            } else {
+                return visitor.visit(binding);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof CacheProvider)) {
+                return false;
+            }
+
+            CacheProvider<?, ?> other = (CacheProvider<?, ?>)obj;
+            return keyType.equals(other.keyType)
+                    && valueType.equals(other.valueType)
+                    && loaderKey.equals(other.loaderKey)
+                    && maximumSize == other.maximumSize
+                    && expireAfterWriteNanos == other.expireAfterWriteNanos
+                    && expireAfterAccessNanos == other.expireAfterAccessNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    keyType, valueType, loaderKey, maximumSize, expireAfterWriteNanos, expireAfterAccessNanos);
+        }
+    }
+}
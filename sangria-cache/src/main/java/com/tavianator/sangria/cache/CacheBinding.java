@@ -0,0 +1,71 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+/**
+ * SPI for {@link CacheBinder} bindings.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public interface CacheBinding<K, V> {
+    /**
+     * @return The type of the cache's keys.
+     */
+    TypeLiteral<K> getKeyType();
+
+    /**
+     * @return The type of the cache's values.
+     */
+    TypeLiteral<V> getValueType();
+
+    /**
+     * @return The key of the {@link CacheLoader} binding that loads the cache's values.
+     */
+    Key<? extends CacheLoader<? super K, V>> getLoaderKey();
+
+    /**
+     * @return The maximum number of entries in the cache, or -1 if the size is unbounded.
+     */
+    long getMaximumSize();
+
+    /**
+     * @param unit The unit to return the duration in.
+     * @return How long after an entry is written before it expires, or -1 if entries don't expire after writes.
+     */
+    long getExpireAfterWrite(TimeUnit unit);
+
+    /**
+     * @param unit The unit to return the duration in.
+     * @return How long after an entry is last accessed before it expires, or -1 if entries don't expire after access.
+     */
+    long getExpireAfterAccess(TimeUnit unit);
+
+    /**
+     * @return A snapshot of the cache's statistics. Before the cache is created, for example in {@link
+     *         com.google.inject.Stage#TOOL}, all statistics are zero.
+     */
+    CacheStats getStats();
+}
@@ -0,0 +1,70 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheLoader;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+/**
+ * See the EDSL examples at {@link CacheBinder}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public interface CacheBindingBuilder<K, V> {
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     *
+     * @param maximumSize The maximum number of entries in the cache.
+     */
+    CacheBindingBuilder<K, V> maximumSize(long maximumSize);
+
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     *
+     * @param duration How long after an entry is written before it expires.
+     * @param unit     The unit of {@code duration}.
+     */
+    CacheBindingBuilder<K, V> expireAfterWrite(long duration, TimeUnit unit);
+
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     *
+     * @param duration How long after an entry is last accessed before it expires.
+     * @param unit     The unit of {@code duration}.
+     */
+    CacheBindingBuilder<K, V> expireAfterAccess(long duration, TimeUnit unit);
+
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     */
+    void loadedBy(Class<? extends CacheLoader<? super K, V>> loaderType);
+
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     */
+    void loadedBy(TypeLiteral<? extends CacheLoader<? super K, V>> loaderType);
+
+    /**
+     * See the EDSL examples at {@link CacheBinder}.
+     */
+    void loadedBy(Key<? extends CacheLoader<? super K, V>> loaderKey);
+}
@@ -0,0 +1,243 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.cache;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import org.junit.Test;
+
+import static com.tavianator.sangria.test.SangriaMatchers.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CacheBinder}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class CacheBinderTest {
+    private static class LengthLoader extends CacheLoader<String, Integer> {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        final AtomicInteger loads = new AtomicInteger();
+        final String suffix;
+
+        @Inject
+        LengthLoader(@Named("suffix") String suffix) {
+            INSTANCES.incrementAndGet();
+            this.suffix = suffix;
+        }
+
+        @Override
+        public Integer load(String key) {
+            loads.incrementAndGet();
+            return (key + suffix).length();
+        }
+    }
+
+    private static class HasCache {
+        final LoadingCache<String, Integer> cache;
+
+        @Inject
+        HasCache(@Named("lengths") LoadingCache<String, Integer> cache) {
+            this.cache = cache;
+        }
+    }
+
+    private static final Module MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            bindConstant().annotatedWith(Names.named("suffix")).to("!");
+            bind(LengthLoader.class);
+
+            CacheBinder.create(binder())
+                    .bind(String.class, Integer.class)
+                    .annotatedWith(Names.named("lengths"))
+                    .maximumSize(2)
+                    .expireAfterWrite(1, TimeUnit.MINUTES)
+                    .loadedBy(LengthLoader.class);
+
+            bind(HasCache.class);
+        }
+    };
+
+    private static final Key<LoadingCache<String, Integer>> CACHE_KEY
+            = new Key<LoadingCache<String, Integer>>(Names.named("lengths")) { };
+
+    @Test
+    public void testInjectedLoader() {
+        LoadingCache<String, Integer> cache = Guice.createInjector(MODULE).getInstance(HasCache.class).cache;
+        assertThat(cache.getUnchecked("abc"), equalTo(4));
+    }
+
+    @Test
+    public void testDeferredLoader() {
+        int before = LengthLoader.INSTANCES.get();
+        LoadingCache<String, Integer> cache = Guice.createInjector(MODULE).getInstance(CACHE_KEY);
+        assertThat(LengthLoader.INSTANCES.get() - before, equalTo(0));
+
+        cache.getUnchecked("a");
+        cache.getUnchecked("b");
+        assertThat(LengthLoader.INSTANCES.get() - before, equalTo(1));
+    }
+
+    @Test
+    public void testSingletonCache() {
+        Injector injector = Guice.createInjector(MODULE);
+        assertThat(injector.getInstance(HasCache.class).cache, sameInstance(injector.getInstance(HasCache.class).cache));
+    }
+
+    @Test
+    public void testMaximumSize() {
+        LoadingCache<String, Integer> cache = Guice.createInjector(MODULE).getInstance(CACHE_KEY);
+        for (String key : Arrays.asList("a", "b", "c", "d")) {
+            cache.getUnchecked(key);
+        }
+        assertThat(cache.size(), lessThanOrEqualTo(2L));
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        LoadingCache<String, Integer> cache = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named("suffix")).to("");
+
+                CacheBinder.create(binder())
+                        .bind(String.class, Integer.class)
+                        .expireAfterAccess(1, TimeUnit.MILLISECONDS)
+                        .loadedBy(LengthLoader.class);
+            }
+        }).getInstance(new Key<LoadingCache<String, Integer>>() { });
+
+        cache.getUnchecked("a");
+        Thread.sleep(10);
+        cache.getUnchecked("a");
+        assertThat(cache.stats().missCount(), equalTo(2L));
+    }
+
+    @Test
+    public void testBestPractices() {
+        assertThat(MODULE, is(atomic()));
+        assertThat(MODULE, followsBestPractices());
+    }
+
+    private static Module sizedModule(final long maximumSize) {
+        return new AbstractModule() {
+            @Override
+            protected void configure() {
+                bindConstant().annotatedWith(Names.named("suffix")).to("");
+
+                CacheBinder.create(binder())
+                        .bind(String.class, Integer.class)
+                        .maximumSize(maximumSize)
+                        .loadedBy(LengthLoader.class);
+            }
+        };
+    }
+
+    @Test
+    public void testDeduplication() {
+        Guice.createInjector(sizedModule(2), sizedModule(2));
+    }
+
+    @Test(expected = CreationException.class)
+    public void testConflictingOptions() {
+        Guice.createInjector(sizedModule(2), sizedModule(3));
+    }
+
+    @Test(expected = CreationException.class)
+    public void testIncompleteEdsl() {
+        Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                CacheBinder.create(binder())
+                        .bind(String.class, Integer.class);
+            }
+        });
+    }
+
+    private static class TestVisitor<T> extends DefaultBindingTargetVisitor<T, CacheBinding<?, ?>>
+            implements CacheBindingVisitor<T, CacheBinding<?, ?>> {
+        @Override
+        public CacheBinding<?, ?> visit(CacheBinding<?, ?> binding) {
+            assertThat(binding.getKeyType().getRawType().equals(String.class), is(true));
+            return binding;
+        }
+
+        @Override
+        protected CacheBinding<?, ?> visitOther(Binding<? extends T> binding) {
+            return null;
+        }
+    }
+
+    private <T> CacheBinding<?, ?> visit(Binding<T> binding) {
+        return binding.acceptTargetVisitor(new TestVisitor<T>());
+    }
+
+    @Test
+    public void testExtensionSpi() {
+        List<Element> elements = Elements.getElements(MODULE);
+
+        int found = 0;
+        for (Element element : elements) {
+            if (element instanceof Binding) {
+                CacheBinding<?, ?> binding = visit((Binding<?>)element);
+                if (binding != null) {
+                    ++found;
+                    assertThat(binding.getValueType().getRawType(), equalTo((Object)Integer.class));
+                    assertThat(binding.getLoaderKey().equals(Key.get(LengthLoader.class)), is(true));
+                    assertThat(binding.getMaximumSize(), equalTo(2L));
+                    assertThat(binding.getExpireAfterWrite(TimeUnit.SECONDS), equalTo(60L));
+                    assertThat(binding.getExpireAfterAccess(TimeUnit.SECONDS), equalTo(-1L));
+                    assertThat(binding.getStats(), equalTo(new CacheStats(0, 0, 0, 0, 0, 0)));
+                }
+            }
+        }
+        assertThat(found, equalTo(1));
+
+        Injector injector = Guice.createInjector(Elements.getModule(elements));
+        injector.getInstance(CACHE_KEY).getUnchecked("a");
+        injector.getInstance(CACHE_KEY).getUnchecked("a");
+
+        CacheBinding<?, ?> binding = visit(injector.getBinding(CACHE_KEY));
+        assertThat(binding, not(nullValue()));
+        assertThat(binding.getStats().hitCount(), equalTo(1L));
+        assertThat(binding.getStats().missCount(), equalTo(1L));
+        assertThat(visit(injector.getBinding(LengthLoader.class)), nullValue());
+    }
+}
@@ -0,0 +1,57 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.contextual;
+
+import java.util.*;
+
+import com.google.inject.Injector;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.InjectionPoint;
+
+/**
+ * A {@link ContextSensitiveProvider} that can provide instances for many contexts at once.
+ *
+ * <p>
+ * The first time {@link ContextSensitiveBinder} provisions from a batch provider's binding, it finds every known
+ * {@link Dependency} on that binding, and resolves them all with a single call to {@link #getInContexts(Collection)}.
+ * This is useful when each lookup is a round trip to a slow backend. Dependencies that weren't known up front, such as
+ * those of later just-in-time bindings, are still resolved one at a time with {@link #getInContext(InjectionPoint)}.
+ * </p>
+ *
+ * <p>
+ * Each instance in the batch is kept for the life of the {@link Injector}, and reused for every provision of its
+ * dependency, no matter how the binding is scoped. Batch providers therefore suit values that can be shared, like
+ * loggers or configuration, rather than ones that must be fresh for each provision. Dependencies are resolved
+ * individually, so two parameters with the same key at one injection point can still get different instances.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public interface BatchContextSensitiveProvider<T> extends ContextSensitiveProvider<T> {
+    /**
+     * Provide instances of {@code T} for many contexts at once.
+     *
+     * @param dependencies The {@link Dependency}s to resolve, each of which has an {@link InjectionPoint}.
+     * @return A map from {@link Dependency}s to instances of {@code T}, which may be {@code null} for nullable
+     *         dependencies. Any dependencies missing from the map will be resolved later with {@link
+     *         #getInContext(InjectionPoint)}.
+     */
+    Map<Dependency<?>, T> getInContexts(Collection<Dependency<?>> dependencies);
+}
@@ -0,0 +1,48 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.contextual;
+
+import com.google.inject.spi.InjectionPoint;
+
+/**
+ * A {@link ContextSensitiveProvider} whose instances depend only on the class being injected, like a logger.
+ *
+ * <p>
+ * When bound with {@link ContextSensitiveBinder}, results are memoized per class in a {@link ClassValue}, so repeated
+ * provisions for the same class are a single lookup that never calls the provider. {@link #getForClass(Class)} must
+ * therefore return an instance that can be shared by every injection point in the class, and its result for a given
+ * class must not change. {@link #getInContext(InjectionPoint)} is only used when the provider is called directly, and
+ * should be implemented as
+ * </p>
+ *
+ * <pre>
+ * return getForClass(injectionPoint.getDeclaringType().getRawType());
+ * </pre>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public interface ClassSensitiveProvider<T> extends ContextSensitiveProvider<T> {
+    /**
+     * Provide an instance of {@code T} for a class.
+     *
+     * @param type The class declaring the injection point.
+     * @return An instance of {@code T} to share between every injection point in {@code type}.
+     */
+    T getForClass(Class<?> type);
+}
@@ -18,27 +18,36 @@
 package com.tavianator.sangria.contextual;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.*;
 import javax.inject.Inject;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.AbstractModule;
 import com.google.inject.Binder;
 import com.google.inject.Binding;
 import com.google.inject.ConfigurationException;
+import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Provider;
+import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.matcher.AbstractMatcher;
 import com.google.inject.matcher.Matcher;
 import com.google.inject.spi.BindingTargetVisitor;
 import com.google.inject.spi.Dependency;
 import com.google.inject.spi.DependencyAndSource;
+import com.google.inject.spi.HasDependencies;
 import com.google.inject.spi.InjectionPoint;
 import com.google.inject.spi.ProviderInstanceBinding;
 import com.google.inject.spi.ProviderWithExtensionVisitor;
 import com.google.inject.spi.ProvisionListener;
+import com.google.inject.spi.ProvisionListener.ProvisionInvocation;
 
 import com.tavianator.sangria.core.DelayedError;
+import com.tavianator.sangria.core.Tracer;
 import com.tavianator.sangria.core.UniqueAnnotations;
 
 /**
@@ -55,7 +64,7 @@ import com.tavianator.sangria.core.UniqueAnnotations;
  * </pre>
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.0
+ * @version 1.4
  * @since 1.0
  */
 public class ContextSensitiveBinder {
@@ -140,8 +149,8 @@ public class ContextSensitiveBinder {
             error.cancel();
 
             Provider<? extends ContextSensitiveProvider<? extends T>> provider = binder.getProvider(makeUniqueLinkedKey(key));
-            binder.bind(bindingKey).toProvider(new ProviderKeyAdapter<>(provider, key));
-            binder.bindListener(new BindingMatcher(bindingKey), new Trigger(bindingKey));
+            binder.bind(bindingKey).toProvider(new ProviderKeyAdapter<>(bindingKey, provider, key));
+            binder.install(new TriggerModule());
         }
 
         /**
@@ -158,31 +167,366 @@ public class ContextSensitiveBinder {
         public void toContextSensitiveProvider(ContextSensitiveProvider<? extends T> provider) {
             error.cancel();
 
-            binder.bind(bindingKey).toProvider(new ProviderInstanceAdapter<>(provider));
-            binder.bindListener(new BindingMatcher(bindingKey), new Trigger(bindingKey));
+            binder.bind(bindingKey).toProvider(new ProviderInstanceAdapter<>(bindingKey, provider));
+            binder.install(new TriggerModule());
             // Match the behaviour of LinkedBindingBuilder#toProvider(Provider)
             binder.requestInjection(provider);
         }
     }
 
+    /**
+     * Tracks the provisioning context of the current thread. Each context is the {@link Dependency} being provisioned,
+     * which always has an {@link InjectionPoint}, or {@code null} if it's unknown.
+     *
+     * <p>
+     * Context-sensitive provisions can nest, for example when a {@link ContextSensitiveProvider} itself depends on a
+     * context-sensitive binding, so the innermost context must be restored once a nested provision is done. On runtimes
+     * where {@code java.lang.ScopedValue} is a standard API, the context is bound as a scoped value for the duration of
+     * each provision. That touches no per-thread maps, which matters with one virtual thread per request. Otherwise,
+     * a {@link ThreadLocal} stack is used.
+     * </p>
+     */
+    private static abstract class Context {
+        /** Stands in for a null context. */
+        static final Object NONE = new Object();
+
+        static final Context INSTANCE = ScopedValueContext.isSupported()
+                ? new ScopedValueContext()
+                : new ThreadLocalContext();
+
+        /**
+         * Carry out a provision in the given context.
+         */
+        abstract void provision(Dependency<?> dependency, ProvisionInvocation<?> provision);
+
+        /**
+         * @return The innermost context, or {@code null} if it's unknown.
+         */
+        abstract Dependency<?> peek();
+    }
+
+    /**
+     * A per-thread stack of contexts.
+     *
+     * <p>
+     * Each thread keeps a single stack, which is updated in place around every provision. Setting and removing a
+     * {@link ThreadLocal} value each time instead would insert and expunge an entry in the thread's map for every
+     * provision. Each provision still costs a {@link ThreadLocal} lookup on entry and on exit, plus a scan of the
+     * stack, which is rarely more than a few entries deep.
+     * </p>
+     *
+     * <p>
+     * Nesting beyond the initial capacity grows the stack, and it shrinks back once it's empty again. The stack is a
+     * plain {@code Object[]}, and an empty one holds no references, so a stack left behind on a pooled thread doesn't
+     * pin this library's class loader or anything else.
+     * </p>
+     */
+    private static final class ThreadLocalContext extends Context {
+        private static final int INITIAL_CAPACITY = 4;
+
+        /** Null marks the unused part of the stack. */
+        private static final ThreadLocal<Object[]> STACK = new ThreadLocal<Object[]>() {
+            @Override
+            protected Object[] initialValue() {
+                return new Object[INITIAL_CAPACITY];
+            }
+        };
+
+        private static int size(Object[] stack) {
+            int size = 0;
+            while (size < stack.length && stack[size] != null) {
+                ++size;
+            }
+            return size;
+        }
+
+        @Override
+        void provision(Dependency<?> dependency, ProvisionInvocation<?> provision) {
+            push(dependency);
+            try {
+                provision.provision();
+            } finally {
+                pop();
+            }
+        }
+
+        private static void push(Dependency<?> dependency) {
+            Object[] stack = STACK.get();
+            int size = size(stack);
+            if (size == stack.length) {
+                stack = Arrays.copyOf(stack, 2*size);
+                STACK.set(stack);
+            }
+            stack[size] = dependency == null ? NONE : dependency;
+        }
+
+        private static void pop() {
+            Object[] stack = STACK.get();
+            int size = size(stack);
+            stack[size - 1] = null;
+            if (size == 1 && stack.length > INITIAL_CAPACITY) {
+                STACK.set(new Object[INITIAL_CAPACITY]);
+            }
+        }
+
+        @Override
+        Dependency<?> peek() {
+            Object[] stack = STACK.get();
+            int size = size(stack);
+            if (size == 0) {
+                return null;
+            }
+
+            Object top = stack[size - 1];
+            return top == NONE ? null : (Dependency<?>)top;
+        }
+    }
+
+    /**
+     * Contexts bound to a {@code java.lang.ScopedValue}. That API is newer than this library's source level, so it's
+     * reached through {@link MethodHandle}s, which are constant-folded since they're held in static final fields.
+     * Rebinding the value for a nested provision shadows the outer context until the nested one returns.
+     */
+    private static final class ScopedValueContext extends Context {
+        /** The first Java release in which {@code ScopedValue} isn't a preview API. */
+        private static final int MINIMUM_VERSION = 25;
+
+        private static final Object SCOPED_VALUE;
+        /** {@code static ScopedValue.Carrier ScopedValue.where(ScopedValue, Object)} */
+        private static final MethodHandle WHERE;
+        /** {@code void ScopedValue.Carrier.run(Runnable)} */
+        private static final MethodHandle RUN;
+        /** {@code Object ScopedValue.orElse(Object)}, bound to {@link #SCOPED_VALUE} */
+        private static final MethodHandle OR_ELSE;
+
+        static {
+            Object scopedValue = null;
+            MethodHandle where = null;
+            MethodHandle run = null;
+            MethodHandle orElse = null;
+
+            if (javaVersion() >= MINIMUM_VERSION) {
+                try {
+                    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                    Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+                    Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+
+                    scopedValue = lookup
+                            .findStatic(scopedValueClass, "newInstance", MethodType.methodType(scopedValueClass))
+                            .invoke();
+                    where = lookup.findStatic(scopedValueClass, "where",
+                            MethodType.methodType(carrierClass, scopedValueClass, Object.class));
+                    run = lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class));
+                    orElse = lookup
+                            .findVirtual(scopedValueClass, "orElse", MethodType.methodType(Object.class, Object.class))
+                            .bindTo(scopedValue);
+                } catch (Throwable e) {
+                    // Fall back to ThreadLocalContext
+                    scopedValue = null;
+                }
+            }
+
+            SCOPED_VALUE = scopedValue;
+            WHERE = where;
+            RUN = run;
+            OR_ELSE = orElse;
+        }
+
+        /**
+         * @return The major version of the running Java platform.
+         */
+        private static int javaVersion() {
+            String version = System.getProperty("java.specification.version", "");
+            if (version.startsWith("1.")) {
+                version = version.substring(2);
+            }
+            try {
+                return Integer.parseInt(version);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        static boolean isSupported() {
+            return SCOPED_VALUE != null;
+        }
+
+        @Override
+        void provision(Dependency<?> dependency, final ProvisionInvocation<?> provision) {
+            Runnable action = new Runnable() {
+                @Override
+                public void run() {
+                    provision.provision();
+                }
+            };
+
+            try {
+                RUN.invoke(WHERE.invoke(SCOPED_VALUE, dependency == null ? NONE : dependency), action);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // Runnable.run() can't throw checked exceptions
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        Dependency<?> peek() {
+            Object context;
+            try {
+                context = OR_ELSE.invoke(NONE);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new AssertionError(e);
+            }
+            return context == NONE ? null : (Dependency<?>)context;
+        }
+    }
+
     /**
      * Adapter from {@link ContextSensitiveProvider} to {@link Provider}.
      */
     private static abstract class ProviderAdapter<T> implements ProviderWithExtensionVisitor<T> {
-        private static final ThreadLocal<InjectionPoint> CURRENT_CONTEXT = new ThreadLocal<>();
+        private final Key<T> bindingKey;
+        private Injector injector;
+        /** Whether the delegate's capabilities below have been inspected yet. */
+        private volatile boolean inspected = false;
+        /** Memoized instances, if the delegate is a {@link ClassSensitiveProvider}. */
+        private ClassValue<T> byClass = null;
+        /** Whether the delegate is a {@link DependencySensitiveProvider}. */
+        private boolean dependencySensitive = false;
+        /** Whether the delegate is a {@link BatchContextSensitiveProvider}. */
+        private boolean batch = false;
+        /** Instances resolved in a batch by a {@link BatchContextSensitiveProvider}. */
+        private volatile Map<Dependency<?>, T> resolved = null;
+
+        ProviderAdapter(Key<T> bindingKey) {
+            this.bindingKey = bindingKey;
+        }
+
+        @Inject
+        void initialize(Injector injector) {
+            this.injector = injector;
+        }
+
+        /**
+         * Check what the delegate can do on first use. The static type of a provider key may be an interface that the
+         * delegate implements more of, so the delegate itself has to be examined, and it can't be provisioned any
+         * earlier.
+         */
+        private synchronized void inspect() {
+            if (inspected) {
+                return;
+            }
+
+            ContextSensitiveProvider<? extends T> delegate = delegate();
+            if (delegate instanceof ClassSensitiveProvider) {
+                byClass = new ClassValue<T>() {
+                    @SuppressWarnings("unchecked") // Checked by inspect()
+                    @Override
+                    protected T computeValue(Class<?> type) {
+                        return ((ClassSensitiveProvider<? extends T>)delegate()).getForClass(type);
+                    }
+                };
+            }
+            dependencySensitive = delegate instanceof DependencySensitiveProvider;
+            batch = delegate instanceof BatchContextSensitiveProvider;
+
+            inspected = true;
+        }
+
+        /**
+         * Resolve the batch on first use.
+         */
+        private Map<Dependency<?>, T> resolved() {
+            Map<Dependency<?>, T> result = resolved;
+            if (result == null) {
+                synchronized (this) {
+                    result = resolved;
+                    if (result == null) {
+                        // Anything the batch provider provisions itself takes the slow path
+                        resolved = ImmutableMap.of();
+                        result = resolveBatch(findDependencies());
+                        resolved = result;
+                    }
+                }
+            }
+            return result;
+        }
 
-        static void pushContext(InjectionPoint ip) {
-            CURRENT_CONTEXT.set(ip);
+        /**
+         * @return Every known {@link Dependency} on this binding.
+         */
+        private Set<Dependency<?>> findDependencies() {
+            Set<Dependency<?>> dependencies = new LinkedHashSet<>();
+            for (Binding<?> binding : injector.getAllBindings().values()) {
+                if (binding instanceof HasDependencies) {
+                    for (Dependency<?> dependency : ((HasDependencies)binding).getDependencies()) {
+                        if (dependency.getInjectionPoint() != null && isDependencyOn(bindingKey, dependency)) {
+                            dependencies.add(dependency);
+                        }
+                    }
+                }
+            }
+            return dependencies;
         }
 
-        static void popContext() {
-            CURRENT_CONTEXT.remove();
+        @SuppressWarnings("unchecked") // Checked by inspect()
+        private Map<Dependency<?>, T> resolveBatch(Set<Dependency<?>> dependencies) {
+            if (dependencies.isEmpty()) {
+                return ImmutableMap.of();
+            }
+
+            BatchContextSensitiveProvider<? extends T> provider = (BatchContextSensitiveProvider<? extends T>)delegate();
+            // Not an ImmutableMap, since nullable dependencies may legitimately be resolved to null
+            return new HashMap<Dependency<?>, T>(provider.getInContexts(dependencies));
         }
 
         @Override
         public T get() {
-            InjectionPoint ip = CURRENT_CONTEXT.get();
-            if (ip != null) {
+            Dependency<?> dependency = Context.INSTANCE.peek();
+
+            Tracer tracer = Tracer.get();
+            Object trace = null;
+            if (tracer.isEnabled()) {
+                InjectionPoint ip = dependency == null ? null : dependency.getInjectionPoint();
+                trace = tracer.beginContextSensitiveProvision(bindingKey, ip);
+            }
+            if (trace != null) {
+                T instance = get(dependency);
+                tracer.endContextSensitiveProvision(trace);
+                return instance;
+            } else {
+                return get(dependency);
+            }
+        }
+
+        @SuppressWarnings("unchecked") // Checked by inspect()
+        private T get(Dependency<?> dependency) {
+            if (dependency != null) {
+                InjectionPoint ip = dependency.getInjectionPoint();
+
+                if (!inspected) {
+                    inspect();
+                }
+
+                ClassValue<T> memo = byClass;
+                if (memo != null) {
+                    return memo.get(ip.getDeclaringType().getRawType());
+                }
+
+                if (dependencySensitive) {
+                    return ((DependencySensitiveProvider<? extends T>)delegate()).getForDependency(dependency);
+                }
+
+                if (batch) {
+                    Map<Dependency<?>, T> resolved = resolved();
+                    T instance = resolved.get(dependency);
+                    if (instance != null || resolved.containsKey(dependency)) {
+                        return instance;
+                    }
+                }
                 return delegate().getInContext(ip);
             } else {
                 return delegate().getInUnknownContext();
@@ -202,17 +546,66 @@ public class ContextSensitiveBinder {
     private static class ProviderKeyAdapter<T> extends ProviderAdapter<T> implements ContextSensitiveProviderKeyBinding<T> {
         private final Provider<? extends ContextSensitiveProvider<? extends T>> provider;
         private final Key<? extends ContextSensitiveProvider<? extends T>> providerKey;
+        private Injector injector;
+        /** The provider's own binding, resolved on first use. */
+        private volatile Provider<? extends ContextSensitiveProvider<? extends T>> target = null;
+        private boolean singleton = false;
+        /** The cached provider instance, if it's a singleton. */
+        private volatile ContextSensitiveProvider<? extends T> instance = null;
 
         ProviderKeyAdapter(
+                Key<T> bindingKey,
                 Provider<? extends ContextSensitiveProvider<? extends T>> provider,
                 Key<? extends ContextSensitiveProvider<? extends T>> providerKey) {
+            super(bindingKey);
             this.provider = provider;
             this.providerKey = providerKey;
         }
 
+        @Inject
+        void setInjector(Injector injector) {
+            this.injector = injector;
+        }
+
         @Override
         ContextSensitiveProvider<? extends T> delegate() {
-            return provider.get();
+            ContextSensitiveProvider<? extends T> result = instance;
+            if (result == null) {
+                Provider<? extends ContextSensitiveProvider<? extends T>> resolved = target;
+                if (resolved == null) {
+                    resolved = resolveTarget();
+                }
+
+                result = resolved.get();
+                if (singleton) {
+                    // Racing threads will see the same instance anyway
+                    instance = result;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Skip the unique linked binding, which only exists for {@link Binder#requireExplicitBindings()} support, and
+         * go straight to the provider's own binding. This can't happen during injection, because Guice doesn't
+         * guarantee that the provider's binding is ready by then.
+         */
+        private Provider<? extends ContextSensitiveProvider<? extends T>> resolveTarget() {
+            Provider<? extends ContextSensitiveProvider<? extends T>> result = provider;
+
+            Binding<? extends ContextSensitiveProvider<? extends T>> binding = injector.getExistingBinding(providerKey);
+            if (binding != null) {
+                try {
+                    result = binding.getProvider();
+                    singleton = Scopes.isSingleton(binding);
+                } catch (ConfigurationException e) {
+                    // Just-in-time bindings are only reachable through the linked binding if explicit bindings are
+                    // required
+                }
+            }
+
+            target = result;
+            return result;
         }
 
         @SuppressWarnings("unchecked") // The real type of B must be T
@@ -252,7 +645,8 @@ public class ContextSensitiveBinder {
         private final ContextSensitiveProvider<? extends T> instance;
         private Set<InjectionPoint> injectionPoints;
 
-        ProviderInstanceAdapter(ContextSensitiveProvider<? extends T> instance) {
+        ProviderInstanceAdapter(Key<T> bindingKey, ContextSensitiveProvider<? extends T> instance) {
+            super(bindingKey);
             this.instance = instance;
 
             Set<InjectionPoint> injectionPoints;
@@ -309,64 +703,76 @@ public class ContextSensitiveBinder {
     }
 
     /**
-     * {@link Matcher} for {@link Binding}s for specific {@link Key}s.
+     * @return Whether the given {@link Dependency} will be satisfied by the binding for {@code key}. This includes
+     *         dependencies on keys with annotation instances like {@code @Named("value")}, when {@code key} is bound
+     *         with just the annotation type.
      */
-    private static class BindingMatcher extends AbstractMatcher<Binding<?>> {
-        private final Key<?> key;
+    private static boolean isDependencyOn(Key<?> key, Dependency<?> dependency) {
+        Key<?> dependencyKey = dependency.getKey();
+        return key.equals(dependencyKey)
+                || (dependencyKey.hasAttributes() && key.equals(dependencyKey.withoutAttributes()));
+    }
 
-        BindingMatcher(Key<?> key) {
-            this.key = key;
+    /**
+     * Installs the {@link Trigger}. All instances are equal, so Guice installs it only once no matter how many
+     * context-sensitive bindings there are. Otherwise, every binding would be checked against one matcher per
+     * context-sensitive key, and each context-sensitive binding would accumulate redundant listeners.
+     */
+    private static final class TriggerModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bindListener(BindingMatcher.INSTANCE, Trigger.INSTANCE);
         }
 
         @Override
-        public boolean matches(Binding<?> binding) {
-            return key.equals(binding.getKey());
+        public boolean equals(Object obj) {
+            return obj instanceof TriggerModule;
+        }
+
+        @Override
+        public int hashCode() {
+            return TriggerModule.class.hashCode();
         }
     }
 
     /**
-     * {@link ProvisionListener} that sets up the current {@link InjectionPoint}.
+     * {@link Matcher} for context-sensitive {@link Binding}s.
      */
-    private static class Trigger implements ProvisionListener {
-        private final Key<?> key;
+    private static final class BindingMatcher extends AbstractMatcher<Binding<?>> {
+        static final BindingMatcher INSTANCE = new BindingMatcher();
 
-        Trigger(Key<?> key) {
-            this.key = key;
+        @Override
+        public boolean matches(Binding<?> binding) {
+            return binding instanceof ProviderInstanceBinding
+                    && ((ProviderInstanceBinding<?>)binding).getUserSuppliedProvider() instanceof ProviderAdapter;
         }
+    }
+
+    /**
+     * {@link ProvisionListener} that sets up the current {@link InjectionPoint}.
+     */
+    private static final class Trigger implements ProvisionListener {
+        static final Trigger INSTANCE = new Trigger();
 
         @Override
         public <T> void onProvision(ProvisionInvocation<T> provision) {
-            for (DependencyAndSource dependencyAndSource : provision.getDependencyChain()) {
-                Dependency<?> dependency = dependencyAndSource.getDependency();
-                if (dependency != null && key.equals(dependency.getKey())) {
-                    try {
-                        ProviderAdapter.pushContext(dependency.getInjectionPoint());
-                        provision.provision();
-                    } finally {
-                        ProviderAdapter.popContext();
+            Key<T> key = provision.getBinding().getKey();
+
+            // Find the innermost dependency on our key.  If there isn't one, we're being provisioned directly, and
+            // must still push a null context to hide any outer one.
+            Dependency<?> context = null;
+            List<DependencyAndSource> chain = provision.getDependencyChain();
+            for (int i = chain.size() - 1; i >= 0; --i) {
+                Dependency<?> dependency = chain.get(i).getDependency();
+                if (dependency != null && isDependencyOn(key, dependency)) {
+                    if (dependency.getInjectionPoint() != null) {
+                        context = dependency;
                     }
-
                     break;
                 }
             }
-        }
 
-        // Allow listeners to be de-duplicated
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == this) {
-                return true;
-            } else if (!(obj instanceof Trigger)) {
-                return false;
-            }
-
-            Trigger other = (Trigger)obj;
-            return key.equals(other.key);
-        }
-
-        @Override
-        public int hashCode() {
-            return key.hashCode();
+            Context.INSTANCE.provision(context, provision);
         }
     }
 }
@@ -0,0 +1,47 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.contextual;
+
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.InjectionPoint;
+
+/**
+ * A {@link ContextSensitiveProvider} whose instances depend on the exact {@link Dependency} being injected, not just
+ * its {@link InjectionPoint}.
+ *
+ * <p>
+ * A constructor or method injection point can have several parameters bound to the same context-sensitive binding,
+ * with different qualifier attributes or parameter annotations. When bound with {@link ContextSensitiveBinder},
+ * {@link #getForDependency(Dependency)} is called with the parameter actually being provisioned, so each one can be
+ * told apart. {@link #getInContext(InjectionPoint)} is only used when the provider is called directly.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public interface DependencySensitiveProvider<T> extends ContextSensitiveProvider<T> {
+    /**
+     * Provide an instance of {@code T} for a dependency.
+     *
+     * @param dependency The {@link Dependency} for this provision, whose {@link Dependency#getInjectionPoint()} is
+     *                   never {@code null}.
+     * @return An instance of {@code T}.
+     */
+    T getForDependency(Dependency<?> dependency);
+}
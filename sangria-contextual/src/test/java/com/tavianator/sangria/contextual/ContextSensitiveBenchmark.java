@@ -0,0 +1,185 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.contextual;
+
+import java.util.*;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.Stage;
+import com.google.inject.name.Names;
+import com.google.inject.spi.InjectionPoint;
+
+/**
+ * Microbenchmark for context-sensitive provisioning. It isn't run with the tests; run it by hand from the test
+ * classpath:
+ *
+ * <pre>
+ * java -cp ... com.tavianator.sangria.contextual.ContextSensitiveBenchmark [iterations]
+ * </pre>
+ *
+ * <p>
+ * Each scenario provisions a class with context-sensitive dependencies from a {@link Stage#PRODUCTION} injector, and
+ * reports the best time per provision over several rounds, after a warm-up. The "flat" scenario's provider is bound
+ * by key to a singleton, which is looked up once and then memoized; compare it with the "unscoped" and "instance"
+ * scenarios to see the cost of that lookup.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class ContextSensitiveBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    /**
+     * Unscoped, so a new one is provisioned through its binding every time.
+     */
+    static class SelfProvider implements ContextSensitiveProvider<String> {
+        @Inject
+        SelfProvider() {
+        }
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            return injectionPoint.getDeclaringType().getRawType().getSimpleName();
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "<unknown>";
+        }
+    }
+
+    /**
+     * A singleton, so it's only looked up once.
+     */
+    @Singleton
+    static class SingletonSelfProvider extends SelfProvider {
+        @Inject
+        SingletonSelfProvider() {
+        }
+    }
+
+    static class HasSelf {
+        @Inject @Named("self") String self;
+    }
+
+    static class HasUnscopedSelf {
+        @Inject @Named("unscoped") String self;
+    }
+
+    static class HasInstanceSelf {
+        @Inject @Named("instance") String self;
+    }
+
+    /**
+     * Provisions a {@link HasSelf} from inside its own context-sensitive provision.
+     */
+    @Singleton
+    static class NestingProvider implements ContextSensitiveProvider<String> {
+        private final Provider<HasSelf> inner;
+
+        @Inject
+        NestingProvider(Provider<HasSelf> inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            return inner.get().self;
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "<unknown>";
+        }
+    }
+
+    static class HasNested {
+        @Inject @Named("nested") String nested;
+    }
+
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Injector injector = Guice.createInjector(Stage.PRODUCTION, new AbstractModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder contextualBinder = ContextSensitiveBinder.create(binder());
+                contextualBinder
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(SingletonSelfProvider.class);
+                contextualBinder
+                        .bind(String.class)
+                        .annotatedWith(Names.named("unscoped"))
+                        .toContextSensitiveProvider(SelfProvider.class);
+                contextualBinder
+                        .bind(String.class)
+                        .annotatedWith(Names.named("instance"))
+                        .toContextSensitiveProvider(new SelfProvider());
+                contextualBinder
+                        .bind(String.class)
+                        .annotatedWith(Names.named("nested"))
+                        .toContextSensitiveProvider(NestingProvider.class);
+            }
+        });
+
+        // One context on the stack at a time
+        run("flat", injector.getProvider(HasSelf.class), iterations);
+        // Two contexts on the stack, once per provision
+        run("nested", injector.getProvider(HasNested.class), iterations);
+        // The provider is looked up through its binding every time
+        run("unscoped", injector.getProvider(HasUnscopedSelf.class), iterations);
+        // No lookup at all
+        run("instance", injector.getProvider(HasInstanceSelf.class), iterations);
+    }
+
+    private static void run(String name, Provider<?> provider, int iterations) {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            measure(provider, iterations);
+        }
+
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; ++i) {
+            best = Math.min(best, measure(provider, iterations));
+        }
+
+        System.out.format("%-12s %8.1f ns/provision%n", name, best);
+    }
+
+    /**
+     * @return The average time per provision, in nanoseconds.
+     */
+    private static double measure(Provider<?> provider, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            sink += provider.get().hashCode();
+        }
+        return (double)(System.nanoTime() - start)/iterations;
+    }
+}
@@ -18,9 +18,12 @@
 package com.tavianator.sangria.contextual;
 
 import java.util.*;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Singleton;
 
+import com.google.common.base.Predicates;
 import com.google.inject.AbstractModule;
 import com.google.inject.Binding;
 import com.google.inject.CreationException;
@@ -29,18 +32,27 @@ import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.MembersInjector;
 import com.google.inject.Module;
+import com.google.inject.PrivateModule;
 import com.google.inject.Provider;
+import com.google.inject.Provides;
 import com.google.inject.ProvisionException;
+import com.google.inject.Stage;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Names;
 import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.Dependency;
 import com.google.inject.spi.Element;
 import com.google.inject.spi.Elements;
 import com.google.inject.spi.InjectionPoint;
+import com.google.inject.spi.ProvisionListenerBinding;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.tavianator.sangria.core.FastConstructorBinder;
+import com.tavianator.sangria.test.StressReport;
+import com.tavianator.sangria.test.StressTester;
+
 import static com.tavianator.sangria.test.SangriaMatchers.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -49,7 +61,7 @@ import static org.junit.Assert.*;
  * Tests for {@link ContextSensitiveBinder}.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.0
+ * @version 1.4
  * @since 1.0
  */
 public class ContextSensitiveBinderTest {
@@ -97,6 +109,99 @@ public class ContextSensitiveBinderTest {
         assertThat(hasSelf.selfProvider.get(), equalTo("<unknown>"));
     }
 
+    private static class FastSelf {
+        final String constructorSelf;
+        @Inject @Named("self") String fieldSelf;
+
+        @Inject
+        FastSelf(@Named("self") String constructorSelf) {
+            this.constructorSelf = constructorSelf;
+        }
+    }
+
+    private static class FastOptionalSelf extends FastSelf {
+        @com.google.inject.Inject(optional = true) @Named("missing") String missing;
+
+        @Inject
+        FastOptionalSelf(@Named("self") String constructorSelf) {
+            super(constructorSelf);
+        }
+    }
+
+    @Test
+    public void testFastConstructor() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(SelfProvider.class);
+
+                FastConstructorBinder fastBinder = FastConstructorBinder.create(binder());
+                fastBinder.bind(FastSelf.class)
+                        .toFastConstructor();
+                fastBinder.bind(FastOptionalSelf.class)
+                        .toFastConstructor();
+            }
+        });
+
+        FastSelf fastSelf = injector.getInstance(FastSelf.class);
+        assertThat(fastSelf.constructorSelf, equalTo("FastSelf"));
+        assertThat(fastSelf.fieldSelf, equalTo("FastSelf"));
+
+        // Optional members are injected by Guice, which must see the right context too
+        FastOptionalSelf optionalSelf = injector.getInstance(FastOptionalSelf.class);
+        assertThat(optionalSelf.constructorSelf, equalTo("FastOptionalSelf"));
+        assertThat(optionalSelf.fieldSelf, equalTo("FastSelf"));
+    }
+
+    private static class ParameterProvider implements DependencySensitiveProvider<String> {
+        @Override
+        public String getForDependency(Dependency<?> dependency) {
+            return "parameter " + dependency.getParameterIndex();
+        }
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "<unknown>";
+        }
+    }
+
+    private static class HasParameters {
+        final String first;
+        final String second;
+
+        @Inject
+        HasParameters(@Named("parameter") String first, @Named("parameter") String second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    @Test
+    public void testDependencySensitiveProvider() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("parameter"))
+                        .toContextSensitiveProvider(new ParameterProvider());
+            }
+        });
+
+        HasParameters hasParameters = injector.getInstance(HasParameters.class);
+        assertThat(hasParameters.first, equalTo("parameter 0"));
+        assertThat(hasParameters.second, equalTo("parameter 1"));
+        assertThat(injector.getInstance(Key.get(String.class, Names.named("parameter"))), equalTo("<unknown>"));
+    }
+
     @Test
     public void testProviderTypeLiteral() {
         Injector injector = Guice.createInjector(new AbstractModule() {
@@ -152,6 +257,23 @@ public class ContextSensitiveBinderTest {
         assertThat(hasSelf.selfProvider.get(), equalTo("<unknown>"));
     }
 
+    @Test
+    public void testAnnotationType() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(com.google.inject.name.Named.class)
+                        .toContextSensitiveProvider(SelfProvider.class);
+            }
+        });
+
+        HasSelf hasSelf = injector.getInstance(HasSelf.class);
+        assertThat(hasSelf.self, equalTo("HasSelf"));
+        assertThat(hasSelf.selfProvider.get(), equalTo("<unknown>"));
+    }
+
     @Test
     public void testKeyDeDuplication() {
         Injector injector = Guice.createInjector(new AbstractModule() {
@@ -297,6 +419,449 @@ public class ContextSensitiveBinderTest {
         assertThat(recursive.hasSelf.self, equalTo("HasSelf"));
     }
 
+    private static class BatchSelfProvider implements BatchContextSensitiveProvider<String> {
+        @Inject Injector injector;
+        int batchCalls = 0;
+        int calls = 0;
+
+        @Override
+        public Map<Dependency<?>, String> getInContexts(Collection<Dependency<?>> dependencies) {
+            assertThat(injector, notNullValue());
+            ++batchCalls;
+
+            Map<Dependency<?>, String> result = new HashMap<>();
+            for (Dependency<?> dependency : dependencies) {
+                InjectionPoint injectionPoint = dependency.getInjectionPoint();
+                String self = injectionPoint.getDeclaringType().getRawType().getSimpleName();
+                if (dependency.getParameterIndex() >= 0) {
+                    self += "#" + dependency.getParameterIndex();
+                }
+                result.put(dependency, "batch:" + self);
+            }
+            return result;
+        }
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            ++calls;
+            return injectionPoint.getDeclaringType().getRawType().getSimpleName();
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "<unknown>";
+        }
+    }
+
+    private static class HasJitSelf {
+        @Inject @Named("self") String self;
+    }
+
+    @Test
+    public void testBatchProvider() {
+        final BatchSelfProvider provider = new BatchSelfProvider();
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(HasSelf.class);
+
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(provider);
+            }
+        });
+        HasSelf hasSelf = injector.getInstance(HasSelf.class);
+        assertThat(provider.batchCalls, equalTo(1));
+        assertThat(hasSelf.self, equalTo("batch:HasSelf"));
+        assertThat(hasSelf.selfProvider.get(), equalTo("<unknown>"));
+        assertThat(provider.calls, equalTo(0));
+
+        // Not known at injector creation time
+        HasJitSelf hasJitSelf = injector.getInstance(HasJitSelf.class);
+        assertThat(hasJitSelf.self, equalTo("HasJitSelf"));
+        assertThat(provider.calls, equalTo(1));
+        assertThat(provider.batchCalls, equalTo(1));
+    }
+
+    private static class HasSelfParameters {
+        final String first;
+        final String second;
+
+        @Inject
+        HasSelfParameters(@Named("self") String first, @Named("self") String second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    @Test
+    public void testBatchProviderParameters() {
+        final BatchSelfProvider provider = new BatchSelfProvider();
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(HasSelfParameters.class);
+
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(provider);
+            }
+        });
+
+        HasSelfParameters hasSelves = injector.getInstance(HasSelfParameters.class);
+        assertThat(hasSelves.first, equalTo("batch:HasSelfParameters#0"));
+        assertThat(hasSelves.second, equalTo("batch:HasSelfParameters#1"));
+        assertThat(provider.batchCalls, equalTo(1));
+        assertThat(provider.calls, equalTo(0));
+    }
+
+    private interface StringProvider extends ContextSensitiveProvider<String> {
+    }
+
+    @Singleton
+    private static class BatchStringProvider extends BatchSelfProvider implements StringProvider {
+        @Inject
+        BatchStringProvider() {
+        }
+    }
+
+    @Test
+    public void testBatchProviderByInterface() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(HasSelf.class);
+                bind(StringProvider.class).to(BatchStringProvider.class);
+
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(StringProvider.class);
+            }
+        });
+
+        assertThat(injector.getInstance(HasSelf.class).self, equalTo("batch:HasSelf"));
+        assertThat(injector.getInstance(BatchStringProvider.class).batchCalls, equalTo(1));
+    }
+
+    private static class NullBatchProvider implements BatchContextSensitiveProvider<String> {
+        int calls = 0;
+
+        @Override
+        public Map<Dependency<?>, String> getInContexts(Collection<Dependency<?>> dependencies) {
+            Map<Dependency<?>, String> result = new HashMap<>();
+            for (Dependency<?> dependency : dependencies) {
+                result.put(dependency, null);
+            }
+            return result;
+        }
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            ++calls;
+            return "single";
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "<unknown>";
+        }
+    }
+
+    private static class HasNullableSelf {
+        @Inject @Named("self") @Nullable String self;
+    }
+
+    @Test
+    public void testBatchProviderNullValues() {
+        final NullBatchProvider provider = new NullBatchProvider();
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(HasNullableSelf.class);
+
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(provider);
+            }
+        });
+
+        assertThat(injector.getInstance(HasNullableSelf.class).self, nullValue());
+        assertThat(provider.calls, equalTo(0));
+    }
+
+    private static class NestingProvider implements ContextSensitiveProvider<String> {
+        @Inject Provider<HasSelf> hasSelfProvider;
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            String self = injectionPoint.getDeclaringType().getRawType().getSimpleName();
+            return self + "/" + hasSelfProvider.get().self;
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "<unknown>/" + hasSelfProvider.get().self;
+        }
+    }
+
+    private static class HasNested {
+        @Inject @Named("nested") String nested;
+        @Inject @Named("self") String self;
+    }
+
+    @Test
+    public void testNestedProvision() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder contextualBinder = ContextSensitiveBinder.create(binder());
+                contextualBinder
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(SelfProvider.class);
+                contextualBinder
+                        .bind(String.class)
+                        .annotatedWith(Names.named("nested"))
+                        .toContextSensitiveProvider(new NestingProvider());
+            }
+        });
+
+        HasNested hasNested = injector.getInstance(HasNested.class);
+        assertThat(hasNested.nested, equalTo("HasNested/HasSelf"));
+        assertThat(hasNested.self, equalTo("HasNested"));
+
+        String nested = injector.getInstance(Key.get(String.class, Names.named("nested")));
+        assertThat(nested, equalTo("<unknown>/HasSelf"));
+    }
+
+    private static final Module NESTED_MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            ContextSensitiveBinder contextualBinder = ContextSensitiveBinder.create(binder());
+            contextualBinder
+                    .bind(String.class)
+                    .annotatedWith(Names.named("self"))
+                    .toContextSensitiveProvider(SelfProvider.class);
+            contextualBinder
+                    .bind(String.class)
+                    .annotatedWith(Names.named("nested"))
+                    .toContextSensitiveProvider(new NestingProvider());
+        }
+
+        @Provides
+        @Named("summary")
+        String getSummary(HasNested hasNested) {
+            return hasNested.nested + " " + hasNested.self;
+        }
+    };
+
+    @Test
+    public void testNestedProvisionUnderStress() {
+        // Every thread nests contexts at once, so any leak between threads shows up as the wrong context
+        StressReport report = StressTester.forKey(Key.get(String.class, Names.named("summary")))
+                .checking(Predicates.equalTo("HasNested/HasSelf HasNested"))
+                .run(NESTED_MODULE);
+        assertThat(report, is(consistentUnderStress()));
+    }
+
+    @Test
+    public void testSharedListener() {
+        Module selfModule = new AbstractModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(SelfProvider.class);
+            }
+        };
+        Module nestedModule = new PrivateModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("nested"))
+                        .toContextSensitiveProvider(new NestingProvider());
+                expose(String.class).annotatedWith(Names.named("nested"));
+            }
+        };
+
+        int listeners = 0;
+        for (Element element : Elements.getElements(selfModule, selfModule, nestedModule)) {
+            if (element instanceof ProvisionListenerBinding) {
+                ++listeners;
+            }
+        }
+        assertThat(listeners, equalTo(1));
+
+        HasNested hasNested = Guice.createInjector(selfModule, nestedModule).getInstance(HasNested.class);
+        assertThat(hasNested.nested, equalTo("HasNested/HasSelf"));
+        assertThat(hasNested.self, equalTo("HasNested"));
+    }
+
+    private static class CountingProvider implements ContextSensitiveProvider<String> {
+        static int instances = 0;
+
+        @Inject
+        CountingProvider() {
+            ++instances;
+        }
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            return getInUnknownContext();
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "counted";
+        }
+    }
+
+    @Test
+    public void testProviderScope() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(CountingProvider.class)
+                        .annotatedWith(Names.named("singleton"))
+                        .to(CountingProvider.class)
+                        .in(Singleton.class);
+
+                ContextSensitiveBinder binder = ContextSensitiveBinder.create(binder());
+                binder.bind(String.class)
+                        .annotatedWith(Names.named("singleton"))
+                        .toContextSensitiveProvider(new Key<CountingProvider>(Names.named("singleton")) { });
+                binder.bind(String.class)
+                        .annotatedWith(Names.named("unscoped"))
+                        .toContextSensitiveProvider(CountingProvider.class);
+            }
+        });
+
+        int before = CountingProvider.instances;
+        Provider<String> singleton = injector.getProvider(Key.get(String.class, Names.named("singleton")));
+        for (int i = 0; i < 3; ++i) {
+            assertThat(singleton.get(), equalTo("counted"));
+        }
+        assertThat(CountingProvider.instances - before, equalTo(1));
+
+        before = CountingProvider.instances;
+        Provider<String> unscoped = injector.getProvider(Key.get(String.class, Names.named("unscoped")));
+        for (int i = 0; i < 3; ++i) {
+            assertThat(unscoped.get(), equalTo("counted"));
+        }
+        assertThat(CountingProvider.instances - before, equalTo(3));
+    }
+
+    private static class EagerSelf {
+        final String self;
+
+        @Inject
+        EagerSelf(@Named("self") String self) {
+            this.self = self;
+        }
+    }
+
+    @Test
+    public void testEagerProvisionWithExplicitBindings() {
+        Injector injector = Guice.createInjector(Stage.PRODUCTION, new AbstractModule() {
+            @Override
+            protected void configure() {
+                binder().requireExplicitBindings();
+
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(SelfProvider.class);
+
+                bind(EagerSelf.class).asEagerSingleton();
+            }
+        });
+
+        assertThat(injector.getInstance(EagerSelf.class).self, equalTo("EagerSelf"));
+    }
+
+    private static class ClassNameProvider implements ClassSensitiveProvider<String> {
+        final List<Class<?>> calls = new ArrayList<>();
+
+        @Override
+        public String getForClass(Class<?> type) {
+            calls.add(type);
+            return type.getSimpleName();
+        }
+
+        @Override
+        public String getInContext(InjectionPoint injectionPoint) {
+            return getForClass(injectionPoint.getDeclaringType().getRawType());
+        }
+
+        @Override
+        public String getInUnknownContext() {
+            return "<unknown>";
+        }
+    }
+
+    private static class HasSelves {
+        @Inject @Named("self") String self1;
+        @Inject @Named("self") String self2;
+        @Inject @Named("self") Provider<String> selfProvider;
+    }
+
+    @Test
+    public void testClassSensitiveProvider() {
+        final ClassNameProvider provider = new ClassNameProvider();
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(provider);
+            }
+        });
+
+        HasSelves hasSelves = injector.getInstance(HasSelves.class);
+        assertThat(hasSelves.self1, equalTo("HasSelves"));
+        assertThat(hasSelves.self2, equalTo("HasSelves"));
+        assertThat(hasSelves.selfProvider.get(), equalTo("<unknown>"));
+
+        hasSelves = injector.getInstance(HasSelves.class);
+        assertThat(hasSelves.self1, equalTo("HasSelves"));
+        assertThat(injector.getInstance(HasSelf.class).self, equalTo("HasSelf"));
+
+        assertThat(provider.calls, contains((Object)HasSelves.class, HasSelf.class));
+    }
+
+    @Singleton
+    private static class ClassNameStringProvider extends ClassNameProvider implements StringProvider {
+        @Inject
+        ClassNameStringProvider() {
+        }
+    }
+
+    @Test
+    public void testClassSensitiveProviderByInterface() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(StringProvider.class).to(ClassNameStringProvider.class);
+
+                ContextSensitiveBinder.create(binder())
+                        .bind(String.class)
+                        .annotatedWith(Names.named("self"))
+                        .toContextSensitiveProvider(StringProvider.class);
+            }
+        });
+
+        assertThat(injector.getInstance(HasSelves.class).self1, equalTo("HasSelves"));
+        assertThat(injector.getInstance(HasSelves.class).self1, equalTo("HasSelves"));
+        assertThat(injector.getInstance(ClassNameStringProvider.class).calls, contains((Object)HasSelves.class));
+    }
+
     @Test
     public void testIncompleteEdsl1() {
         thrown.expect(CreationException.class);
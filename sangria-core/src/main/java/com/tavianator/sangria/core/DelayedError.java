@@ -32,7 +32,7 @@ import static com.google.common.base.Preconditions.*;
  * of fluent APIs.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.0
+ * @version 1.4
  * @since 1.0
  */
 public class DelayedError {
@@ -96,6 +96,10 @@ public class DelayedError {
     void reportErrors(Injector injector) throws Throwable {
         reported = true;
         if (error != null) {
+            Tracer tracer = Tracer.get();
+            if (tracer.isEnabled()) {
+                tracer.delayedErrorReported(error);
+            }
             throw error;
         }
     }
@@ -0,0 +1,166 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import java.lang.annotation.Annotation;
+
+import com.google.inject.Binder;
+import com.google.inject.ConfigurationException;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.binder.ScopedBindingBuilder;
+import com.google.inject.spi.Message;
+
+/**
+ * Binder for classes constructed through {@link java.lang.invoke.MethodHandle}s rather than Guice's reflective
+ * construction. Intended for unscoped value objects on hot paths:
+ *
+ * <pre>
+ * FastConstructorBinder.create(binder())
+ *         .bind(Request.class)
+ *         .toFastConstructor(DefaultRequest.class);
+ * </pre>
+ *
+ * <p>
+ * The implementation class is injected like a normal just-in-time binding: through its {@code @Inject} constructor
+ * (or a no-argument one), then its {@code @Inject} fields and methods. Dependencies are resolved with their injection
+ * points, so context-sensitive bindings work as usual. If any member injection is optional, Guice injects the members
+ * instead. Provision listeners still run, but method interceptors are not applied, and circular dependencies are not
+ * proxied.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class FastConstructorBinder {
+    private static final Class<?>[] SKIPPED_SOURCES = {
+            FastConstructorBinder.class,
+            BindingBuilder.class,
+    };
+
+    private final Binder binder;
+
+    private FastConstructorBinder(Binder binder) {
+        this.binder = binder;
+    }
+
+    /**
+     * Create a {@link FastConstructorBinder}.
+     *
+     * @param binder The {@link Binder} to use.
+     * @return A {@link FastConstructorBinder} instance.
+     */
+    public static FastConstructorBinder create(Binder binder) {
+        return new FastConstructorBinder(binder.skipSources(SKIPPED_SOURCES));
+    }
+
+    /**
+     * See the EDSL examples at {@link FastConstructorBinder}.
+     */
+    public <T> AnnotatedFastConstructorBindingBuilder<T> bind(Class<T> type) {
+        return bind(TypeLiteral.get(type));
+    }
+
+    /**
+     * See the EDSL examples at {@link FastConstructorBinder}.
+     */
+    public <T> AnnotatedFastConstructorBindingBuilder<T> bind(TypeLiteral<T> type) {
+        return new BindingBuilder<>(type, PotentialAnnotation.none());
+    }
+
+    /**
+     * See the EDSL examples at {@link FastConstructorBinder}.
+     */
+    public <T> FastConstructorBindingBuilder<T> bind(Key<T> key) {
+        return new BindingBuilder<>(key.getTypeLiteral(), PotentialAnnotation.from(key));
+    }
+
+    /**
+     * Fluent binding builder implementation.
+     */
+    private class BindingBuilder<T> implements AnnotatedFastConstructorBindingBuilder<T> {
+        private final TypeLiteral<T> type;
+        private final PotentialAnnotation potentialAnnotation;
+        private final DelayedError error;
+
+        BindingBuilder(TypeLiteral<T> type, PotentialAnnotation potentialAnnotation) {
+            this.type = type;
+            this.potentialAnnotation = potentialAnnotation;
+            this.error = DelayedError.create(binder, "Missing call to toFastConstructor() for %s", potentialAnnotation.getKey(type));
+        }
+
+        @Override
+        public FastConstructorBindingBuilder<T> annotatedWith(Class<? extends Annotation> annotationType) {
+            error.cancel();
+            return new BindingBuilder<>(type, potentialAnnotation.annotatedWith(annotationType));
+        }
+
+        @Override
+        public FastConstructorBindingBuilder<T> annotatedWith(Annotation annotation) {
+            error.cancel();
+            return new BindingBuilder<>(type, potentialAnnotation.annotatedWith(annotation));
+        }
+
+        @Override
+        public ScopedBindingBuilder toFastConstructor() {
+            return toFastConstructor(type);
+        }
+
+        @Override
+        public ScopedBindingBuilder toFastConstructor(Class<? extends T> implementation) {
+            return toFastConstructor(TypeLiteral.get(implementation));
+        }
+
+        @Override
+        public ScopedBindingBuilder toFastConstructor(TypeLiteral<? extends T> implementation) {
+            error.cancel();
+
+            FastConstructorProvider<T> provider;
+            try {
+                provider = new FastConstructorProvider<T>(binder, implementation);
+            } catch (ConfigurationException e) {
+                for (Message message : e.getErrorMessages()) {
+                    binder.addError(message);
+                }
+                // Bind something anyway, to avoid cascading errors about a missing binding
+                return binder.bind(potentialAnnotation.getKey(type))
+                        .toProvider(new FailedProvider<T>(implementation));
+            }
+
+            return binder.bind(potentialAnnotation.getKey(type))
+                    .toProvider(provider);
+        }
+    }
+
+    /**
+     * Placeholder for a binding that has already reported an error.
+     */
+    private static class FailedProvider<T> implements javax.inject.Provider<T> {
+        private final TypeLiteral<?> type;
+
+        FailedProvider(TypeLiteral<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public T get() {
+            throw new IllegalStateException("Cannot construct " + type);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import com.google.inject.TypeLiteral;
+import com.google.inject.binder.ScopedBindingBuilder;
+
+/**
+ * See the EDSL examples at {@link FastConstructorBinder}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public interface FastConstructorBindingBuilder<T> {
+    /**
+     * Construct the bound type itself.
+     */
+    ScopedBindingBuilder toFastConstructor();
+
+    /**
+     * See the EDSL examples at {@link FastConstructorBinder}.
+     *
+     * @param implementation The class to construct.
+     */
+    ScopedBindingBuilder toFastConstructor(Class<? extends T> implementation);
+
+    /**
+     * See the EDSL examples at {@link FastConstructorBinder}.
+     *
+     * @param implementation The type to construct.
+     */
+    ScopedBindingBuilder toFastConstructor(TypeLiteral<? extends T> implementation);
+}
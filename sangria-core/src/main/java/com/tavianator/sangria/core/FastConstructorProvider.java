@@ -0,0 +1,217 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.*;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Binder;
+import com.google.inject.ConfigurationException;
+import com.google.inject.MembersInjector;
+import com.google.inject.Provider;
+import com.google.inject.ProvisionException;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.InjectionPoint;
+import com.google.inject.spi.Message;
+import com.google.inject.spi.ProviderWithDependencies;
+
+/**
+ * Provider that constructs and injects instances through pre-built {@link MethodHandle}s.
+ *
+ * <p>
+ * Each dependency is looked up from the {@link Binder} by its full {@link Dependency}, as Guice does for its own
+ * constructor bindings, so bindings that depend on their injection point see the right one. Lookups can't be optional,
+ * so types with optional members are constructed here, but have their members injected by Guice.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+final class FastConstructorProvider<T> implements ProviderWithDependencies<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final TypeLiteral<? extends T> type;
+    private final Injectable constructor;
+    private final Injectable[] members;
+    /** Guice's injector for the members, if any of them are optional. */
+    private final MembersInjector<T> membersInjector;
+    private final Set<Dependency<?>> dependencies;
+
+    /**
+     * @throws ConfigurationException If {@code type} can't be injected.
+     */
+    @SuppressWarnings("unchecked") // The members injector only ever sees instances of type
+    FastConstructorProvider(Binder binder, TypeLiteral<? extends T> type) {
+        this.type = type;
+
+        ImmutableSet.Builder<Dependency<?>> dependencies = ImmutableSet.builder();
+
+        InjectionPoint constructorPoint = InjectionPoint.forConstructorOf(type);
+        this.constructor = new Injectable(constructorPoint);
+        dependencies.addAll(constructorPoint.getDependencies());
+
+        Set<InjectionPoint> memberPoints = InjectionPoint.forInstanceMethodsAndFields(type);
+        List<Injectable> members = new ArrayList<>();
+        boolean optional = false;
+        for (InjectionPoint memberPoint : memberPoints) {
+            members.add(new Injectable(memberPoint));
+            dependencies.addAll(memberPoint.getDependencies());
+            optional |= memberPoint.isOptional();
+        }
+
+        this.dependencies = dependencies.build();
+
+        // Only look anything up once we know the type is injectable, to avoid cascading errors
+        constructor.lookUpProviders(binder);
+        if (optional) {
+            this.members = new Injectable[0];
+            this.membersInjector = (MembersInjector<T>)binder.getMembersInjector(type);
+        } else {
+            this.members = members.toArray(new Injectable[members.size()]);
+            for (Injectable member : this.members) {
+                member.lookUpProviders(binder);
+            }
+            this.membersInjector = null;
+        }
+    }
+
+    /**
+     * An injectable constructor, field, or method, along with a {@link MethodHandle} to invoke it. Constructor handles
+     * have type {@code (Object[])Object}; member handles have type {@code (Object, Object[])void}.
+     */
+    private static class Injectable {
+        final InjectionPoint injectionPoint;
+        final Dependency<?>[] dependencies;
+        final MethodHandle handle;
+        private Provider<?>[] providers;
+
+        Injectable(InjectionPoint injectionPoint) {
+            this.injectionPoint = injectionPoint;
+
+            List<Dependency<?>> dependencies = injectionPoint.getDependencies();
+            this.dependencies = dependencies.toArray(new Dependency<?>[dependencies.size()]);
+
+            Member member = injectionPoint.getMember();
+            ((AccessibleObject)member).setAccessible(true);
+            try {
+                this.handle = unreflect(member, this.dependencies.length);
+            } catch (IllegalAccessException e) {
+                throw new ConfigurationException(Collections.singleton(
+                        new Message(Collections.<Object>singletonList(injectionPoint), "Cannot access " + member, e)));
+            }
+        }
+
+        private static MethodHandle unreflect(Member member, int arity) throws IllegalAccessException {
+            if (member instanceof Constructor) {
+                return LOOKUP.unreflectConstructor((Constructor<?>)member)
+                        .asType(MethodType.genericMethodType(arity))
+                        .asSpreader(Object[].class, arity);
+            }
+
+            MethodHandle handle;
+            if (member instanceof Field) {
+                handle = LOOKUP.unreflectSetter((Field)member);
+            } else {
+                handle = LOOKUP.unreflect((Method)member);
+            }
+            return handle.asType(MethodType.genericMethodType(arity + 1).changeReturnType(void.class))
+                    .asSpreader(Object[].class, arity);
+        }
+
+        /**
+         * Look up the providers for this injectable's dependencies. They're usable once the injector is created.
+         */
+        void lookUpProviders(Binder binder) {
+            Provider<?>[] providers = new Provider<?>[dependencies.length];
+            for (int i = 0; i < dependencies.length; ++i) {
+                providers[i] = binder.getProvider(dependencies[i]);
+            }
+            this.providers = providers;
+        }
+
+        Object[] arguments() {
+            Object[] arguments = new Object[providers.length];
+            for (int i = 0; i < arguments.length; ++i) {
+                Object argument = providers[i].get();
+                if (argument == null && !dependencies[i].isNullable()) {
+                    throw new ProvisionException(PrettyTypes.format(
+                            "null returned by binding for non-@Nullable %s at %s",
+                            dependencies[i].getKey(), injectionPoint));
+                }
+                arguments[i] = argument;
+            }
+            return arguments;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get() {
+        try {
+            T instance = (T)(Object)constructor.handle.invokeExact(constructor.arguments());
+            for (Injectable member : members) {
+                member.handle.invokeExact((Object)instance, member.arguments());
+            }
+            if (membersInjector != null) {
+                membersInjector.injectMembers(instance);
+            }
+            return instance;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ProvisionException(PrettyTypes.format("Error constructing %s", type), e);
+        }
+    }
+
+    @Override
+    public Set<Dependency<?>> getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof FastConstructorProvider)) {
+            return false;
+        }
+
+        FastConstructorProvider<?> other = (FastConstructorProvider<?>)obj;
+        return type.equals(other.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "FastConstructor[" + type + "]";
+    }
+}
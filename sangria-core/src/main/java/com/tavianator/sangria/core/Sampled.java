@@ -0,0 +1,54 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.inject.Qualifier;
+
+/**
+ * Qualifier that requests a sampled instance, which only acts on one out of every {@link #value()} events. For
+ * example,
+ *
+ * <pre>
+ * {@literal @}Inject {@literal @}Sampled(100) Logger logger;
+ * </pre>
+ *
+ * <p>
+ * injects a logger that only logs one out of every 100 enabled messages. Support for this qualifier is up to each
+ * binding; see {@link Throttle#sampling(int)}. Sampled bindings are bound to the annotation type, so they aren't
+ * available with {@link com.google.inject.Binder#requireExactBindingAnnotations()}.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.METHOD})
+@Qualifier
+public @interface Sampled {
+    /**
+     * @return The sampling period: one out of every {@code value} events is kept.
+     */
+    int value();
+}
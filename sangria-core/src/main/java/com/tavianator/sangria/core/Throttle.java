@@ -0,0 +1,147 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A lock-free throttle that decides which events to keep. Throttles are meant to be consulted before doing any work
+ * for an event, such as formatting a log message.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public abstract class Throttle {
+    Throttle() {
+    }
+
+    /**
+     * Create a throttle that keeps one out of every {@code period} events.
+     *
+     * @param period The sampling period.
+     * @return A sampling {@link Throttle}.
+     */
+    public static Throttle sampling(int period) {
+        checkArgument(period > 0, "Sampling period %s is not positive", period);
+        return new SamplingThrottle(period);
+    }
+
+    /**
+     * Create a throttle that keeps at most {@code perSecond} events per second. Up to one second's worth of events
+     * may be kept in a burst.
+     *
+     * @param perSecond The maximum rate.
+     * @return A rate-limiting {@link Throttle}.
+     */
+    public static Throttle rateLimiting(double perSecond) {
+        checkArgument(perSecond > 0.0, "Rate %s is not positive", perSecond);
+        return new RateLimitingThrottle(perSecond);
+    }
+
+    /**
+     * Create a throttle for a {@link Sampled} or {@link RateLimited} annotation.
+     *
+     * @param annotation The annotation.
+     * @return The requested {@link Throttle}.
+     * @throws IllegalArgumentException If the annotation isn't a throttling annotation.
+     */
+    public static Throttle forAnnotation(Annotation annotation) {
+        if (annotation instanceof Sampled) {
+            return sampling(((Sampled)annotation).value());
+        } else if (annotation instanceof RateLimited) {
+            return rateLimiting(((RateLimited)annotation).value());
+        } else {
+            throw new IllegalArgumentException(annotation + " is not a throttling annotation");
+        }
+    }
+
+    /**
+     * Decide whether to keep an event.
+     *
+     * @return {@code true} if the event should be kept, {@code false} if it should be dropped.
+     */
+    public abstract boolean tryAcquire();
+
+    /**
+     * Keeps every {@code period}th event, starting with the first.
+     */
+    private static class SamplingThrottle extends Throttle {
+        private final int period;
+        private final AtomicLong count = new AtomicLong();
+
+        SamplingThrottle(int period) {
+            this.period = period;
+        }
+
+        @Override
+        public boolean tryAcquire() {
+            return period == 1 || count.getAndIncrement() % period == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Throttle.sampling(" + period + ")";
+        }
+    }
+
+    /**
+     * An implementation of the generic cell rate algorithm, which is equivalent to a token bucket but only needs a
+     * single word of state: the theoretical arrival time of the next event.
+     */
+    private static class RateLimitingThrottle extends Throttle {
+        private final double perSecond;
+        /** The time between events at the maximum rate. */
+        private final long intervalNanos;
+        /** How far ahead of schedule events may be, to allow bursts. */
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival;
+
+        RateLimitingThrottle(double perSecond) {
+            this.perSecond = perSecond;
+            this.intervalNanos = Math.max(1L, (long)(TimeUnit.SECONDS.toNanos(1) / perSecond));
+            this.toleranceNanos = Math.max(0L, TimeUnit.SECONDS.toNanos(1) - intervalNanos);
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        }
+
+        @Override
+        public boolean tryAcquire() {
+            long now = System.nanoTime();
+            while (true) {
+                long tat = theoreticalArrival.get();
+                if (tat - now > toleranceNanos) {
+                    return false;
+                }
+
+                long next = (tat - now > 0 ? tat : now) + intervalNanos;
+                if (theoreticalArrival.compareAndSet(tat, next)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Throttle.rateLimiting(" + perSecond + ")";
+        }
+    }
+}
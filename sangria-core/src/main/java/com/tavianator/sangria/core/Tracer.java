@@ -0,0 +1,189 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import java.util.*;
+import javax.annotation.Nullable;
+
+import com.google.inject.Key;
+import com.google.inject.spi.InjectionPoint;
+
+/**
+ * Service provider interface for tracing Sangria's own work, so that profilers can attribute it to something more
+ * specific than anonymous Guice frames.
+ *
+ * <p>
+ * The active tracer is loaded once with {@link ServiceLoader}; the first implementation found is used, and if there
+ * are none, tracing is disabled. Instrumented code checks {@link #isEnabled()} before doing any tracing work, so the
+ * disabled tracer costs nothing but a field read:
+ * </p>
+ *
+ * <pre>
+ * Tracer tracer = Tracer.get();
+ * Object trace = tracer.isEnabled() ? tracer.beginLazyResolution(key) : null;
+ * ...
+ * if (trace != null) {
+ *     tracer.endLazyResolution(trace, false);
+ * }
+ * </pre>
+ *
+ * <p>
+ * Timed operations are reported in pairs. The {@code begin} methods return an opaque trace object, or {@code null} if
+ * the operation isn't being traced, and the matching {@code end} method is called with that object once the operation
+ * finishes. Implementations do their own timing, so they can use whatever clock their backend prefers.
+ * </p>
+ *
+ * <p>
+ * Implementations must be thread-safe, and should be fast, since they're called on provisioning paths. All the
+ * methods of this class do nothing; implementations override the ones they're interested in.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public abstract class Tracer {
+    private static final Tracer INSTANCE = load();
+
+    /**
+     * The tracer used when no implementation is available.
+     */
+    private static final class NoOpTracer extends Tracer {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    }
+
+    private static Tracer load() {
+        try {
+            Iterator<Tracer> tracers = ServiceLoader.load(Tracer.class, Tracer.class.getClassLoader()).iterator();
+            if (tracers.hasNext()) {
+                return tracers.next();
+            }
+        } catch (ServiceConfigurationError e) {
+            // A broken tracer shouldn't break injection
+        }
+        return new NoOpTracer();
+    }
+
+    /**
+     * @return The active {@link Tracer}.
+     */
+    public static Tracer get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor for subclasses, which must also have a public no-argument constructor for {@link ServiceLoader}.
+     */
+    protected Tracer() {
+    }
+
+    /**
+     * @return Whether this tracer currently records anything at all. The answer may change over time, so callers
+     *         should check it for each operation.
+     */
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Called when a thread starts waiting for the first resolution of a lazy dependency.
+     *
+     * @param key The key of the dependency, if known.
+     * @return A trace to pass to {@link #endLazyResolution(Object, boolean)}, or {@code null}.
+     */
+    public @Nullable Object beginLazyResolution(@Nullable Key<?> key) {
+        return null;
+    }
+
+    /**
+     * Called when a thread finishes waiting for the first resolution of a lazy dependency.
+     *
+     * @param trace     The trace returned by {@link #beginLazyResolution(Key)}.
+     * @param contended {@code false} if this thread resolved the dependency itself, or {@code true} if it was blocked
+     *                  while another thread resolved it.
+     */
+    public void endLazyResolution(Object trace, boolean contended) {
+    }
+
+    /**
+     * Called when a lazy singleton starts being constructed.
+     *
+     * @param key The key of the singleton.
+     * @return A trace to pass to {@link #endLazySingletonConstruction(Object)}, or {@code null}.
+     */
+    public @Nullable Object beginLazySingletonConstruction(Key<?> key) {
+        return null;
+    }
+
+    /**
+     * Called when a lazy singleton has been constructed.
+     *
+     * @param trace The trace returned by {@link #beginLazySingletonConstruction(Key)}.
+     */
+    public void endLazySingletonConstruction(Object trace) {
+    }
+
+    /**
+     * Called when a context-sensitive binding starts being provisioned.
+     *
+     * @param key            The key of the binding.
+     * @param injectionPoint The injection point it's provisioned for, or {@code null} if it's unknown.
+     * @return A trace to pass to {@link #endContextSensitiveProvision(Object)}, or {@code null}.
+     */
+    public @Nullable Object beginContextSensitiveProvision(Key<?> key, @Nullable InjectionPoint injectionPoint) {
+        return null;
+    }
+
+    /**
+     * Called when a context-sensitive binding has been provisioned.
+     *
+     * @param trace The trace returned by {@link #beginContextSensitiveProvision(Key, InjectionPoint)}.
+     */
+    public void endContextSensitiveProvision(Object trace) {
+    }
+
+    /**
+     * Called when a bound list starts being materialized.
+     *
+     * @param key The key of the list.
+     * @return A trace to pass to {@link #endListMaterialization(Object, int)}, or {@code null}.
+     */
+    public @Nullable Object beginListMaterialization(Key<?> key) {
+        return null;
+    }
+
+    /**
+     * Called when a bound list has been materialized.
+     *
+     * @param trace The trace returned by {@link #beginListMaterialization(Key)}.
+     * @param size  The number of elements.
+     */
+    public void endListMaterialization(Object trace, int size) {
+    }
+
+    /**
+     * Called when a {@link DelayedError} is reported.
+     *
+     * @param error The reported error.
+     */
+    public void delayedErrorReported(Throwable error) {
+    }
+}
@@ -0,0 +1,240 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.ProvisionException;
+import com.google.inject.name.Names;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FastConstructorBinder}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class FastConstructorBinderTest {
+    public @Rule ExpectedException thrown = ExpectedException.none();
+
+    private interface Value {
+    }
+
+    private static class Base {
+        @Inject @Named("field") String baseField;
+    }
+
+    private static class ValueImpl extends Base implements Value {
+        final String constructorArg;
+        @Inject @Named("field") String field;
+        String methodArg;
+        @Inject @Nullable @Named("null") String nullable = "not null";
+
+        @Inject
+        ValueImpl(@Named("constructor") String constructorArg) {
+            this.constructorArg = constructorArg;
+        }
+
+        @Inject
+        void setMethodArg(@Named("method") String methodArg) {
+            this.methodArg = methodArg;
+        }
+    }
+
+    private static class WithOptional {
+        @Inject @Named("field") String field;
+        @com.google.inject.Inject(optional = true) @Named("missing") String missing = "default";
+        @com.google.inject.Inject(optional = true) @Named("method") String present;
+    }
+
+    private static class NoArgs {
+        boolean constructed = false;
+
+        NoArgs() {
+            constructed = true;
+        }
+    }
+
+    private static class Throwing {
+        @Inject
+        Throwing() throws Exception {
+            throw new Exception("Checked");
+        }
+    }
+
+    private static class StringsModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bindConstant().annotatedWith(Names.named("constructor")).to("constructor");
+            bindConstant().annotatedWith(Names.named("field")).to("field");
+            bindConstant().annotatedWith(Names.named("method")).to("method");
+            bind(String.class).annotatedWith(Names.named("null")).toProvider(new com.google.inject.Provider<String>() {
+                @Override
+                public String get() {
+                    return null;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testInjection() {
+        Injector injector = Guice.createInjector(new StringsModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(Value.class)
+                        .toFastConstructor(ValueImpl.class);
+            }
+        });
+
+        ValueImpl value = (ValueImpl)injector.getInstance(Value.class);
+        assertThat(value.constructorArg, equalTo("constructor"));
+        assertThat(value.field, equalTo("field"));
+        assertThat(value.baseField, equalTo("field"));
+        assertThat(value.methodArg, equalTo("method"));
+        assertThat(value.nullable, is(nullValue()));
+
+        assertThat(injector.getInstance(Value.class), not(sameInstance((Value)value)));
+    }
+
+    @Test
+    public void testOptionalMembers() {
+        Injector injector = Guice.createInjector(new StringsModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(WithOptional.class)
+                        .toFastConstructor();
+            }
+        });
+
+        WithOptional value = injector.getInstance(WithOptional.class);
+        assertThat(value.field, equalTo("field"));
+        assertThat(value.missing, equalTo("default"));
+        assertThat(value.present, equalTo("method"));
+    }
+
+    @Test
+    public void testAnnotatedAndScoped() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(NoArgs.class)
+                        .annotatedWith(Names.named("fast"))
+                        .toFastConstructor()
+                        .in(Singleton.class);
+            }
+        });
+
+        Key<NoArgs> key = Key.get(NoArgs.class, Names.named("fast"));
+        NoArgs instance = injector.getInstance(key);
+        assertThat(instance.constructed, is(true));
+        assertThat(injector.getInstance(key), sameInstance(instance));
+    }
+
+    @Test
+    public void testDeDuplication() {
+        Guice.createInjector(new StringsModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(Value.class)
+                        .toFastConstructor(ValueImpl.class);
+                FastConstructorBinder.create(binder())
+                        .bind(Value.class)
+                        .toFastConstructor(ValueImpl.class);
+            }
+        });
+    }
+
+    @Test
+    public void testCheckedException() {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(Throwing.class)
+                        .toFastConstructor();
+            }
+        });
+
+        thrown.expect(ProvisionException.class);
+        thrown.expectMessage("Error constructing");
+        injector.getInstance(Throwing.class);
+    }
+
+    @Test
+    public void testMissingDependency() {
+        thrown.expect(CreationException.class);
+        thrown.expectMessage("constructor");
+
+        Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(Value.class)
+                        .toFastConstructor(ValueImpl.class);
+            }
+        });
+    }
+
+    @Test
+    public void testInterface() {
+        thrown.expect(CreationException.class);
+        thrown.expectMessage("Could not find a suitable constructor");
+
+        Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(Value.class)
+                        .toFastConstructor();
+            }
+        });
+    }
+
+    @Test
+    public void testMissingToFastConstructor() {
+        thrown.expect(CreationException.class);
+        thrown.expectMessage("Missing call to toFastConstructor() for");
+
+        Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                FastConstructorBinder.create(binder())
+                        .bind(Value.class);
+            }
+        });
+    }
+}
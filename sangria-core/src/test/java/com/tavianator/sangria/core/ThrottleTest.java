@@ -0,0 +1,87 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link Throttle}s.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class ThrottleTest {
+    public @Rule ExpectedException thrown = ExpectedException.none();
+
+    @Sampled(3) @RateLimited(5) private Object annotated;
+
+    private int countAcquired(Throttle throttle, int attempts) {
+        int acquired = 0;
+        for (int i = 0; i < attempts; ++i) {
+            if (throttle.tryAcquire()) {
+                ++acquired;
+            }
+        }
+        return acquired;
+    }
+
+    @Test
+    public void testSampling() {
+        Throttle throttle = Throttle.sampling(3);
+        assertThat(throttle.tryAcquire(), is(true));
+        assertThat(throttle.tryAcquire(), is(false));
+        assertThat(throttle.tryAcquire(), is(false));
+        assertThat(throttle.tryAcquire(), is(true));
+        assertThat(countAcquired(throttle, 30), equalTo(10));
+    }
+
+    @Test
+    public void testRateLimiting() {
+        // Only the initial burst fits in a tight loop
+        Throttle throttle = Throttle.rateLimiting(5.0);
+        assertThat(countAcquired(throttle, 100), equalTo(5));
+    }
+
+    @Test
+    public void testForAnnotation() throws NoSuchFieldException {
+        Sampled sampled = ThrottleTest.class.getDeclaredField("annotated").getAnnotation(Sampled.class);
+        assertThat(countAcquired(Throttle.forAnnotation(sampled), 30), equalTo(10));
+
+        RateLimited rateLimited = ThrottleTest.class.getDeclaredField("annotated").getAnnotation(RateLimited.class);
+        assertThat(countAcquired(Throttle.forAnnotation(rateLimited), 100), equalTo(5));
+    }
+
+    @Test
+    public void testInvalidAnnotation() throws NoSuchFieldException {
+        thrown.expect(IllegalArgumentException.class);
+
+        Throttle.forAnnotation(ThrottleTest.class.getDeclaredField("thrown").getAnnotation(Rule.class));
+    }
+
+    @Test
+    public void testInvalidPeriod() {
+        thrown.expect(IllegalArgumentException.class);
+        Throttle.sampling(0);
+    }
+}
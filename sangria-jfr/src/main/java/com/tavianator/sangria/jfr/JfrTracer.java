@@ -0,0 +1,139 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.jfr;
+
+import javax.annotation.Nullable;
+
+import com.google.inject.Key;
+import com.google.inject.spi.InjectionPoint;
+import jdk.jfr.EventType;
+
+import com.tavianator.sangria.core.Tracer;
+
+/**
+ * {@link Tracer} that emits JDK Flight Recorder events. It's registered as a service, so putting {@code sangria-jfr}
+ * on the class path is all it takes to enable it. The events are in the "Sangria" category, and record no stack
+ * traces by default. Timed events use JFR's own clock, and {@link #isEnabled()} is only true while a recording enables
+ * at least one of them, so instrumented code does no tracing work otherwise.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class JfrTracer extends Tracer {
+    private static final EventType LAZY_RESOLUTION = EventType.getEventType(LazyResolutionEvent.class);
+    private static final EventType LAZY_SINGLETON_CONSTRUCTION
+            = EventType.getEventType(LazySingletonConstructionEvent.class);
+    private static final EventType CONTEXT_SENSITIVE_PROVISION
+            = EventType.getEventType(ContextSensitiveProvisionEvent.class);
+    private static final EventType LIST_MATERIALIZATION = EventType.getEventType(ListMaterializationEvent.class);
+    private static final EventType DELAYED_ERROR = EventType.getEventType(DelayedErrorEvent.class);
+
+    @Override
+    public boolean isEnabled() {
+        return LAZY_RESOLUTION.isEnabled()
+                || LAZY_SINGLETON_CONSTRUCTION.isEnabled()
+                || CONTEXT_SENSITIVE_PROVISION.isEnabled()
+                || LIST_MATERIALIZATION.isEnabled()
+                || DELAYED_ERROR.isEnabled();
+    }
+
+    @Override
+    public @Nullable Object beginLazyResolution(@Nullable Key<?> key) {
+        LazyResolutionEvent event = new LazyResolutionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.key = String.valueOf(key);
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endLazyResolution(Object trace, boolean contended) {
+        LazyResolutionEvent event = (LazyResolutionEvent)trace;
+        event.end();
+        event.contended = contended;
+        event.commit();
+    }
+
+    @Override
+    public @Nullable Object beginLazySingletonConstruction(Key<?> key) {
+        LazySingletonConstructionEvent event = new LazySingletonConstructionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.key = key.toString();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endLazySingletonConstruction(Object trace) {
+        LazySingletonConstructionEvent event = (LazySingletonConstructionEvent)trace;
+        event.end();
+        event.commit();
+    }
+
+    @Override
+    public @Nullable Object beginContextSensitiveProvision(Key<?> key, @Nullable InjectionPoint injectionPoint) {
+        ContextSensitiveProvisionEvent event = new ContextSensitiveProvisionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.key = key.toString();
+        event.injectionPoint = injectionPoint != null ? injectionPoint.toString() : null;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endContextSensitiveProvision(Object trace) {
+        ContextSensitiveProvisionEvent event = (ContextSensitiveProvisionEvent)trace;
+        event.end();
+        event.commit();
+    }
+
+    @Override
+    public @Nullable Object beginListMaterialization(Key<?> key) {
+        ListMaterializationEvent event = new ListMaterializationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.key = key.toString();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endListMaterialization(Object trace, int size) {
+        ListMaterializationEvent event = (ListMaterializationEvent)trace;
+        event.end();
+        event.size = size;
+        event.commit();
+    }
+
+    @Override
+    public void delayedErrorReported(Throwable error) {
+        DelayedErrorEvent event = new DelayedErrorEvent();
+        if (event.isEnabled()) {
+            event.message = error.getMessage();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import com.tavianator.sangria.core.DelayedError;
+import com.tavianator.sangria.core.Tracer;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link JfrTracer}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class JfrTracerTest {
+    private List<RecordedEvent> record(Runnable runnable) throws Exception {
+        Path file = Files.createTempFile("sangria", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.tavianator.sangria.*");
+            recording.start();
+            runnable.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private RecordedEvent only(List<RecordedEvent> events, String name) {
+        RecordedEvent result = null;
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                assertThat(result, is(nullValue()));
+                result = event;
+            }
+        }
+        assertThat(result, is(notNullValue()));
+        return result;
+    }
+
+    @Test
+    public void testServiceLoader() {
+        assertThat(Tracer.get(), instanceOf(JfrTracer.class));
+    }
+
+    @Test
+    public void testEnabledOnlyWhileRecording() throws Exception {
+        final Tracer tracer = Tracer.get();
+        assertThat(tracer.isEnabled(), is(false));
+        assertThat(tracer.beginLazyResolution(null), is(nullValue()));
+
+        final boolean[] enabled = new boolean[1];
+        record(new Runnable() {
+            @Override
+            public void run() {
+                enabled[0] = tracer.isEnabled();
+            }
+        });
+        assertThat(enabled[0], is(true));
+        assertThat(tracer.isEnabled(), is(false));
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        final Key<String> key = Key.get(String.class, Names.named("test"));
+        List<RecordedEvent> events = record(new Runnable() {
+            @Override
+            public void run() {
+                Tracer tracer = Tracer.get();
+
+                Object trace = tracer.beginLazyResolution(key);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                tracer.endLazyResolution(trace, true);
+
+                tracer.endLazySingletonConstruction(tracer.beginLazySingletonConstruction(key));
+                tracer.endContextSensitiveProvision(tracer.beginContextSensitiveProvision(key, null));
+                tracer.endListMaterialization(tracer.beginListMaterialization(key), 4);
+            }
+        });
+
+        RecordedEvent lazy = only(events, "com.tavianator.sangria.LazyResolution");
+        assertThat(lazy.getString("key"), equalTo(key.toString()));
+        assertThat(lazy.getDuration().toMillis(), greaterThanOrEqualTo(1L));
+        assertThat(lazy.getBoolean("contended"), is(true));
+        assertThat(lazy.getStackTrace(), is(nullValue()));
+
+        RecordedEvent singleton = only(events, "com.tavianator.sangria.LazySingletonConstruction");
+        assertThat(singleton.getString("key"), equalTo(key.toString()));
+
+        RecordedEvent contextual = only(events, "com.tavianator.sangria.ContextSensitiveProvision");
+        assertThat(contextual.getString("injectionPoint"), is(nullValue()));
+
+        RecordedEvent list = only(events, "com.tavianator.sangria.ListMaterialization");
+        assertThat(list.getInt("size"), equalTo(4));
+    }
+
+    @Test
+    public void testDelayedError() throws Exception {
+        List<RecordedEvent> events = record(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Guice.createInjector(new AbstractModule() {
+                        @Override
+                        protected void configure() {
+                            DelayedError.create(binder(), "Test error");
+                        }
+                    });
+                    fail();
+                } catch (CreationException e) {
+                    // Expected
+                }
+            }
+        });
+
+        RecordedEvent error = only(events, "com.tavianator.sangria.DelayedError");
+        assertThat(error.getString("message"), containsString("Test error"));
+    }
+}
@@ -17,9 +17,15 @@
 
 package com.tavianator.sangria.lazy;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Provider;
 
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import com.tavianator.sangria.core.Tracer;
+
 /**
  * A lazily-loaded dependency. Like a {@link Provider}, calling {@link #get()} will produce an instance of {@code T}.
  * Unlike a {@link Provider}, the same instance will be returned for every future call to {@link #get()}. Different
@@ -52,18 +58,24 @@ import javax.inject.Provider;
  * </pre>
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.2
+ * @version 1.4
  * @since 1.2
  */
 public final class Lazy<T> {
     private static final Object SENTINEL = new Object();
 
     private final Provider<T> provider;
+    private final @Nullable Key<T> key;
     private volatile Object instance = SENTINEL;
 
     @Inject
-    Lazy(Provider<T> provider) {
+    Lazy(Provider<T> provider, TypeLiteral<T> type) {
+        this(provider, Key.get(type));
+    }
+
+    Lazy(Provider<T> provider, @Nullable Key<T> key) {
         this.provider = provider;
+        this.key = key;
     }
 
     /**
@@ -73,11 +85,23 @@ public final class Lazy<T> {
     public T get() {
         // Double-checked locking
         if (instance == SENTINEL) {
+            Tracer tracer = Tracer.get();
+            Object trace = tracer.isEnabled() ? tracer.beginLazyResolution(key) : null;
+
+            boolean contended;
             synchronized (this) {
-                if (instance == SENTINEL) {
+                contended = instance != SENTINEL;
+                if (!contended) {
                     instance = provider.get();
+                    if (key != null) {
+                        LazyTrace.recordResolution(key);
+                    }
                 }
             }
+
+            if (trace != null) {
+                tracer.endLazyResolution(trace, contended);
+            }
         }
         return (T) instance;
     }
@@ -252,7 +252,7 @@ public class LazyBinder {
 
         @Override
         public Lazy<T> get() {
-            return new Lazy<>(provider);
+            return new Lazy<>(provider, key);
         }
 
         @Override
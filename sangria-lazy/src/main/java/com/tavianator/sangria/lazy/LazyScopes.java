@@ -17,16 +17,26 @@
 
 package com.tavianator.sangria.lazy;
 
+import java.lang.ref.SoftReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
 import com.google.inject.Scopes;
 
+import com.tavianator.sangria.core.Tracer;
+
+import static com.google.common.base.Preconditions.*;
+
 /**
  * Lazy scope implementations.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.2
+ * @version 1.4
  * @since 1.2
  */
 public class LazyScopes {
@@ -37,7 +47,7 @@ public class LazyScopes {
      */
     public static final Scope LAZY_SINGLETON = new Scope() {
         public <T> Provider<T> scope(final Key<T> key, final Provider<T> creator) {
-            final Provider<T> singleton = Scopes.SINGLETON.scope(key, creator);
+            final Provider<T> singleton = Scopes.SINGLETON.scope(key, traced(key, creator));
 
             return new Provider<T>() {
                 public T get() {
@@ -56,4 +66,234 @@ public class LazyScopes {
             return "LazyScopes.LAZY_SINGLETON";
         }
     };
+
+    /**
+     * Like {@link #LAZY_SINGLETON}, but only holds its instance through a {@link SoftReference}, so the garbage
+     * collector can reclaim it when memory is tight. The instance is transparently rebuilt on the next access after
+     * that; concurrent accesses wait for a single rebuild.
+     *
+     * @see SoftSingleton
+     */
+    public static final Scope SOFT_SINGLETON = new Scope() {
+        public <T> Provider<T> scope(final Key<T> key, final Provider<T> creator) {
+            return new SoftSingletonProvider<>(traced(key, creator), creator);
+        }
+
+        @Override
+        public String toString() {
+            return "LazyScopes.SOFT_SINGLETON";
+        }
+    };
+
+    /**
+     * Provider implementation for {@link #SOFT_SINGLETON}.
+     */
+    private static class SoftSingletonProvider<T> implements Provider<T> {
+        /** Stands in for a null instance, so that it isn't rebuilt on every access. */
+        private static final Object NULL = new Object();
+
+        private final Provider<T> creator;
+        private final Provider<T> original;
+        private volatile SoftReference<Object> reference = null;
+
+        SoftSingletonProvider(Provider<T> creator, Provider<T> original) {
+            this.creator = creator;
+            this.original = original;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get() {
+            Object instance = dereference();
+            if (instance == null) {
+                synchronized (this) {
+                    instance = dereference();
+                    if (instance == null) {
+                        instance = creator.get();
+                        if (instance == null) {
+                            instance = NULL;
+                        }
+                        reference = new SoftReference<>(instance);
+                    }
+                }
+            }
+            return instance == NULL ? null : (T)instance;
+        }
+
+        private Object dereference() {
+            SoftReference<Object> ref = reference;
+            return ref != null ? ref.get() : null;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%s]", original, SOFT_SINGLETON);
+        }
+    }
+
+    /**
+     * Create a variant of {@link #LAZY_SINGLETON} that evicts its instance once it hasn't been accessed for a while,
+     * and rebuilds it on the next access. Evicted instances that are {@link AutoCloseable} are closed; any exceptions
+     * from {@link AutoCloseable#close()} are ignored. Useful for heavy resources that are only needed occasionally:
+     *
+     * <pre>
+     * bind(Model.class)
+     *         .in(LazyScopes.evictingAfterIdle(10, TimeUnit.MINUTES));
+     * </pre>
+     *
+     * <p>
+     * Evictions happen on a shared background thread. Since every access records its time, this scope is a bit more
+     * expensive to access than {@link #LAZY_SINGLETON}. Like {@link #SOFT_SINGLETON}, it's only suitable for instances
+     * that other objects don't hold on to.
+     * </p>
+     *
+     * @param timeout How long an instance may be idle before it's evicted.
+     * @param unit    The unit of {@code timeout}.
+     * @return A {@link Scope} that evicts idle instances.
+     */
+    public static Scope evictingAfterIdle(long timeout, TimeUnit unit) {
+        checkArgument(timeout > 0, "timeout must be positive");
+        final long timeoutNanos = unit.toNanos(timeout);
+        final String name = String.format("LazyScopes.evictingAfterIdle(%d, %s)", timeout, unit);
+
+        return new Scope() {
+            public <T> Provider<T> scope(final Key<T> key, final Provider<T> creator) {
+                return new IdleEvictingProvider<>(traced(key, creator), timeoutNanos, creator + "[" + name + "]");
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+    /**
+     * The thread that evicts idle instances, created on first use.
+     */
+    private static class Evictor {
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "sangria-idle-eviction");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Provider implementation for {@link #evictingAfterIdle(long, TimeUnit)}.
+     */
+    private static class IdleEvictingProvider<T> implements Provider<T> {
+        /** Stands in for a null instance. */
+        private static final Object NULL = new Object();
+
+        private final Provider<T> creator;
+        private final long timeoutNanos;
+        private final String description;
+        private volatile Object instance = null;
+        private volatile long lastAccess;
+
+        IdleEvictingProvider(Provider<T> creator, long timeoutNanos, String description) {
+            this.creator = creator;
+            this.timeoutNanos = timeoutNanos;
+            this.description = description;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get() {
+            // Must be written before instance is read; see evictIfIdle()
+            lastAccess = System.nanoTime();
+
+            Object result = instance;
+            if (result == null) {
+                synchronized (this) {
+                    result = instance;
+                    if (result == null) {
+                        result = creator.get();
+                        if (result == null) {
+                            result = NULL;
+                        }
+                        instance = result;
+                        lastAccess = System.nanoTime();
+                        scheduleEviction(timeoutNanos);
+                    }
+                }
+            }
+            return result == NULL ? null : (T)result;
+        }
+
+        private void scheduleEviction(long delayNanos) {
+            Evictor.EXECUTOR.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    evictIfIdle();
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void evictIfIdle() {
+            Object evicted;
+            synchronized (this) {
+                evicted = instance;
+                long seen = lastAccess;
+                long idle = System.nanoTime() - seen;
+                if (idle < timeoutNanos) {
+                    scheduleEviction(timeoutNanos - idle);
+                    return;
+                }
+
+                // A concurrent get() writes lastAccess before reading instance, and we clear instance before reading
+                // lastAccess again, so either it sees null and waits for the lock, or we see its access and back off
+                instance = null;
+                if (lastAccess != seen) {
+                    instance = evicted;
+                    scheduleEviction(timeoutNanos);
+                    return;
+                }
+            }
+
+            if (evicted instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable)evicted).close();
+                } catch (Exception e) {
+                    // Nothing useful to do with it here
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Wrap a creator to record construction in any active {@link LazyTrace}, and report construction times to the
+     * {@link Tracer}, if it's enabled. The wrapper is only called once per singleton, so it's cheap either way.
+     */
+    private static <T> Provider<T> traced(final Key<T> key, final Provider<T> creator) {
+        return new Provider<T>() {
+            @Override
+            public T get() {
+                Tracer tracer = Tracer.get();
+                Object trace = tracer.isEnabled() ? tracer.beginLazySingletonConstruction(key) : null;
+
+                T instance = creator.get();
+
+                if (trace != null) {
+                    tracer.endLazySingletonConstruction(trace);
+                }
+                LazyTrace.recordResolution(key);
+                return instance;
+            }
+
+            @Override
+            public String toString() {
+                return creator.toString();
+            }
+        };
+    }
 }
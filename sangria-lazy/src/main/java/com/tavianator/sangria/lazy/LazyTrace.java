@@ -0,0 +1,156 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.inject.Key;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A recording of which {@link Lazy} targets and {@link LazySingleton}s are resolved shortly after startup. Saved to a
+ * file, it lets {@link LazyWarmup} resolve exactly those keys ahead of time on the next start:
+ *
+ * <pre>
+ * // Early in main()
+ * LazyTrace trace = LazyTrace.record(60, TimeUnit.SECONDS);
+ * ...
+ * // Some time later, e.g. on shutdown
+ * trace.save(traceFile);
+ * </pre>
+ *
+ * <p>
+ * Only one trace can be recording at a time, process-wide. A trace stops recording once its duration has passed, or
+ * when {@link #stop()} is called.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class LazyTrace {
+    private static final AtomicReference<LazyTrace> ACTIVE = new AtomicReference<>();
+
+    private final long deadline;
+    /** The recorded keys, in order of first resolution. */
+    private final Set<Key<?>> keys = Collections.synchronizedSet(new LinkedHashSet<Key<?>>());
+
+    private LazyTrace(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Start recording a trace.
+     *
+     * @param duration How long to record for.
+     * @param unit     The unit of {@code duration}.
+     * @return The new trace.
+     * @throws IllegalStateException If another trace is already recording.
+     */
+    public static LazyTrace record(long duration, TimeUnit unit) {
+        checkArgument(duration > 0, "duration must be positive");
+
+        LazyTrace trace = new LazyTrace(System.nanoTime() + unit.toNanos(duration));
+        checkState(ACTIVE.compareAndSet(null, trace), "Another LazyTrace is already recording");
+        return trace;
+    }
+
+    /**
+     * Record the first resolution of a key, if a trace is recording.
+     */
+    static void recordResolution(Key<?> key) {
+        LazyTrace trace = ACTIVE.get();
+        if (trace != null) {
+            trace.add(key);
+        }
+    }
+
+    private void add(Key<?> key) {
+        if (System.nanoTime() - deadline >= 0) {
+            stop();
+        } else {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Stop recording this trace. Stopping a trace more than once has no further effect.
+     */
+    public void stop() {
+        ACTIVE.compareAndSet(this, null);
+    }
+
+    /**
+     * @return Whether this trace is still recording.
+     */
+    public boolean isRecording() {
+        return ACTIVE.get() == this && System.nanoTime() - deadline < 0;
+    }
+
+    /**
+     * @return The keys recorded so far, in order of first resolution.
+     */
+    public List<Key<?>> getKeys() {
+        synchronized (keys) {
+            return new ArrayList<>(keys);
+        }
+    }
+
+    /**
+     * Save this trace to a file, one key per line.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file can't be written.
+     */
+    public void save(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# Sangria lazy resolution trace");
+            writer.newLine();
+            for (Key<?> key : getKeys()) {
+                writer.write(key.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Load the keys saved by {@link #save(Path)}.
+     *
+     * @param file The file to read.
+     * @return The saved keys, in their string form.
+     * @throws IOException If the file can't be read.
+     */
+    static List<String> load(Path file) throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                keys.add(line);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,116 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+/**
+ * Resolves the keys recorded in a {@link LazyTrace} ahead of time, so that the components that are always needed don't
+ * add latency to the first requests after startup, while rarely used ones stay lazy:
+ *
+ * <pre>
+ * Injector injector = Guice.createInjector(...);
+ * if (Files.exists(traceFile)) {
+ *     LazyWarmup.warmUp(injector, traceFile, executor);
+ * }
+ * // Now report readiness
+ * </pre>
+ *
+ * <p>
+ * Warming up a {@link LazySingleton} constructs it. Warming up the target of a {@link Lazy} provisions it once, which
+ * constructs any singletons it depends on, and loads and links its classes; each {@link Lazy} still resolves its own
+ * instance when it's first used. Keys in the trace that the injector doesn't know about are skipped, as are keys
+ * whose provisioning fails, since they'll fail again with the same error when they're really needed.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class LazyWarmup {
+    private LazyWarmup() {
+        // Not for instantiating
+    }
+
+    /**
+     * Warm up an {@link Injector} from a saved {@link LazyTrace}, blocking until it's done.
+     *
+     * @param injector The injector to warm up.
+     * @param file     The file saved by {@link LazyTrace#save(Path)}.
+     * @param executor The executor to provision the keys on, in parallel.
+     * @return The number of keys that were successfully warmed up.
+     * @throws IOException          If the file can't be read.
+     * @throws InterruptedException If interrupted while waiting for the warm-up to finish.
+     */
+    public static int warmUp(Injector injector, Path file, ExecutorService executor)
+            throws IOException, InterruptedException {
+        Map<String, Key<?>> knownKeys = new HashMap<>();
+        for (Injector i = injector; i != null; i = i.getParent()) {
+            for (Key<?> key : i.getAllBindings().keySet()) {
+                if (!knownKeys.containsKey(key.toString())) {
+                    knownKeys.put(key.toString(), key);
+                }
+            }
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (String name : LazyTrace.load(file)) {
+            Key<?> key = knownKeys.get(name);
+            if (key != null) {
+                futures.add(executor.submit(new Warmer(injector, key)));
+            }
+        }
+
+        int count = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+                ++count;
+            } catch (ExecutionException e) {
+                // Let the real use report the error
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Warms up a single key.
+     */
+    private static class Warmer implements Runnable {
+        private final Injector injector;
+        private final Key<?> key;
+
+        Warmer(Injector injector, Key<?> key) {
+            this.injector = injector;
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            injector.getInstance(key);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Provider;
+
+/**
+ * A bounded pool of instances that are expensive to create, but not safe to share between threads. Instances are
+ * borrowed with {@link #borrow()}, and returned by closing the {@link Pooled} lease.
+ *
+ * <p>
+ * At most {@code maxSize} instances are leased out at once. Once they're all in use, {@link #borrow()} blocks until one
+ * is returned, while {@link #tryBorrow()} gives up immediately. Idle instances are reused before new ones are created,
+ * and instances that sit idle for too long can optionally be discarded. Use {@link PoolBinder} to bind a pool:
+ * </p>
+ *
+ * <pre>
+ * bind(Parser.class);
+ *
+ * PoolBinder.create(binder())
+ *         .bind(Parser.class)
+ *         .withMaxSize(16)
+ *         .evictingIdleAfter(5, TimeUnit.MINUTES);
+ *
+ * ...
+ *
+ * {@literal @}Inject Pool&lt;Parser&gt; parserPool;
+ * </pre>
+ *
+ * <p>
+ * Discarded instances that are {@link AutoCloseable} are closed; any exceptions from {@link AutoCloseable#close()}
+ * are ignored. Expired instances are only discarded when the pool is used, so a pool that nobody borrows from keeps
+ * its idle instances until {@link #evictExpired()} is called.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class Pool<T> {
+    private final Provider<T> provider;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    /** Permits for outstanding leases. */
+    private final Semaphore leases;
+    /** Idle instances, most recently returned first. */
+    private final ConcurrentLinkedDeque<Entry<T>> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    Pool(Provider<T> provider, int maxSize, long idleTimeoutNanos) {
+        this.provider = provider;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.leases = new Semaphore(maxSize);
+    }
+
+    /**
+     * An idle instance, along with the time it was returned.
+     */
+    private static class Entry<T> {
+        final T instance;
+        final long returnedAt;
+
+        Entry(T instance, long returnedAt) {
+            this.instance = instance;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    /**
+     * Borrow an instance from this pool, waiting for one to be returned if {@code maxSize} instances are already
+     * leased out.
+     *
+     * @return A {@link Pooled} lease on the instance, which must be closed to return it.
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    public Pooled<T> borrow() throws InterruptedException {
+        leases.acquire();
+        return lease();
+    }
+
+    /**
+     * Borrow an instance from this pool, if one can be leased out without waiting.
+     *
+     * @return A {@link Pooled} lease on the instance, which must be closed to return it, or {@code null} if {@code
+     *         maxSize} instances are already leased out.
+     */
+    public Pooled<T> tryBorrow() {
+        if (leases.tryAcquire()) {
+            return lease();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Borrow an instance from this pool, waiting up to a timeout for one to be returned if {@code maxSize} instances
+     * are already leased out.
+     *
+     * @param timeout How long to wait.
+     * @param unit    The unit of {@code timeout}.
+     * @return A {@link Pooled} lease on the instance, which must be closed to return it, or {@code null} if the timeout
+     *         elapsed first.
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    public Pooled<T> tryBorrow(long timeout, TimeUnit unit) throws InterruptedException {
+        if (leases.tryAcquire(timeout, unit)) {
+            return lease();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Lease out an idle instance, or a new one if none are idle. The caller must hold a lease permit.
+     */
+    private Pooled<T> lease() {
+        long now = System.nanoTime();
+
+        Entry<T> entry;
+        while ((entry = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            if (isExpired(entry, now)) {
+                discard(entry.instance);
+            } else {
+                return new Pooled<>(this, entry.instance);
+            }
+        }
+
+        boolean created = false;
+        try {
+            Pooled<T> pooled = new Pooled<>(this, provider.get());
+            created = true;
+            return pooled;
+        } finally {
+            if (!created) {
+                leases.release();
+            }
+        }
+    }
+
+    /**
+     * @return The maximum number of instances leased out at once.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The current number of idle instances.
+     */
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * @return The current number of instances leased out.
+     */
+    public int getLeasedCount() {
+        return maxSize - leases.availablePermits();
+    }
+
+    /**
+     * Return an instance to this pool.
+     */
+    void release(T instance) {
+        long now = System.nanoTime();
+        idle.offerFirst(new Entry<>(instance, now));
+        idleCount.incrementAndGet();
+        evictExpired(now);
+
+        // Only hand out the permit once the instance is idle, so idle + leased instances never exceed maxSize
+        leases.release();
+    }
+
+    /**
+     * Discard any instances that have been idle for longer than the idle timeout. This happens automatically whenever
+     * the pool is used; call it periodically to shrink a pool that may go unused for a long time.
+     */
+    public void evictExpired() {
+        evictExpired(System.nanoTime());
+    }
+
+    private void evictExpired(long now) {
+        // The oldest entries are at the tail, so we can stop at the first one that's still fresh
+        Entry<T> last;
+        while ((last = idle.peekLast()) != null && isExpired(last, now)) {
+            if (idle.removeLastOccurrence(last)) {
+                idleCount.decrementAndGet();
+                discard(last.instance);
+            }
+        }
+    }
+
+    private boolean isExpired(Entry<T> entry, long now) {
+        return idleTimeoutNanos > 0 && now - entry.returnedAt >= idleTimeoutNanos;
+    }
+
+    /**
+     * Close an instance that's leaving the pool, if it's {@link AutoCloseable}.
+     */
+    private void discard(T instance) {
+        if (instance instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable)instance).close();
+            } catch (Exception e) {
+                // Nothing useful to do with it here
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[%s, maxSize=%d]", provider, maxSize);
+    }
+}
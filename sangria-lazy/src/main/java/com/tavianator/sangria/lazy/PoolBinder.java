@@ -0,0 +1,206 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import com.google.inject.Binder;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.BindingTargetVisitor;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProviderWithExtensionVisitor;
+import com.google.inject.util.Types;
+
+import com.tavianator.sangria.core.DelayedError;
+import com.tavianator.sangria.core.PotentialAnnotation;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Binder for {@link Pool} instances.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class PoolBinder {
+    private static final Class<?>[] SKIPPED_SOURCES = {
+            PoolBinder.class,
+            BindingBuilder.class,
+    };
+
+    private final Binder binder;
+
+    private PoolBinder(Binder binder) {
+        this.binder = binder;
+    }
+
+    /**
+     * Create a {@link PoolBinder}.
+     *
+     * @param binder The {@link Binder} to use.
+     * @return A {@link PoolBinder} instance.
+     */
+    public static PoolBinder create(Binder binder) {
+        return new PoolBinder(binder.skipSources(SKIPPED_SOURCES));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> TypeLiteral<Pool<T>> poolOf(TypeLiteral<T> type) {
+        return (TypeLiteral<Pool<T>>)TypeLiteral.get(Types.newParameterizedType(Pool.class, type.getType()));
+    }
+
+    /**
+     * See the EDSL examples at {@link Pool}.
+     */
+    public <T> AnnotatedPoolBindingBuilder<T> bind(Class<T> type) {
+        return bind(TypeLiteral.get(type));
+    }
+
+    /**
+     * See the EDSL examples at {@link Pool}.
+     */
+    public <T> AnnotatedPoolBindingBuilder<T> bind(TypeLiteral<T> type) {
+        return new BindingBuilder<>(type, PotentialAnnotation.none());
+    }
+
+    /**
+     * See the EDSL examples at {@link Pool}.
+     */
+    public <T> PoolBindingBuilder<T> bind(Key<T> key) {
+        return new BindingBuilder<>(key.getTypeLiteral(), PotentialAnnotation.from(key));
+    }
+
+    /**
+     * Fluent binding builder implementation.
+     */
+    private class BindingBuilder<T> implements AnnotatedPoolBindingBuilder<T> {
+        private final TypeLiteral<T> type;
+        private final PotentialAnnotation potentialAnnotation;
+        private final DelayedError error;
+
+        BindingBuilder(TypeLiteral<T> type, PotentialAnnotation potentialAnnotation) {
+            this.type = type;
+            this.potentialAnnotation = potentialAnnotation;
+            this.error = DelayedError.create(binder, "Missing call to withMaxSize() for %s", potentialAnnotation.getKey(type));
+        }
+
+        @Override
+        public PoolBindingBuilder<T> annotatedWith(Class<? extends Annotation> annotationType) {
+            error.cancel();
+            return new BindingBuilder<>(type, potentialAnnotation.annotatedWith(annotationType));
+        }
+
+        @Override
+        public PoolBindingBuilder<T> annotatedWith(Annotation annotation) {
+            error.cancel();
+            return new BindingBuilder<>(type, potentialAnnotation.annotatedWith(annotation));
+        }
+
+        @Override
+        public IdleEvictionBuilder withMaxSize(int maxSize) {
+            checkArgument(maxSize > 0, "maxSize must be positive");
+            error.cancel();
+
+            Key<T> key = potentialAnnotation.getKey(type);
+            PoolProvider<T> provider = new PoolProvider<>(binder.getProvider(key), key, maxSize);
+            binder.bind(potentialAnnotation.getKey(poolOf(type)))
+                    .toProvider(provider);
+            return provider;
+        }
+    }
+
+    private static class PoolProvider<T> implements PoolBinding<T>, ProviderWithExtensionVisitor<Pool<T>>, IdleEvictionBuilder {
+        private final Provider<T> provider;
+        private final Key<T> key;
+        private final int maxSize;
+        private long idleTimeoutNanos = 0;
+        private Pool<T> pool;
+
+        PoolProvider(Provider<T> provider, Key<T> key, int maxSize) {
+            this.provider = provider;
+            this.key = key;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void evictingIdleAfter(long timeout, TimeUnit unit) {
+            checkArgument(timeout > 0, "timeout must be positive");
+            this.idleTimeoutNanos = unit.toNanos(timeout);
+        }
+
+        @Inject
+        void initialize() {
+            pool = new Pool<>(provider, maxSize, idleTimeoutNanos);
+        }
+
+        @Override
+        public Pool<T> get() {
+            return pool;
+        }
+
+        @Override
+        public Key<T> getTargetKey() {
+            return key;
+        }
+
+        @Override
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        @Override
+        public long getIdleTimeout(TimeUnit unit) {
+            return unit.convert(idleTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @SuppressWarnings("unchecked") // B must be Pool<T>
+        @Override
+        public <B, V> V acceptExtensionVisitor(BindingTargetVisitor<B, V> visitor, ProviderInstanceBinding<? extends B> binding) {
+            if (visitor instanceof PoolBindingVisitor) {
+                return ((PoolBindingVisitor<T, V>)visitor).visit(this);
+            } else {
+                return visitor.visit(binding);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof PoolProvider)) {
+                return false;
+            }
+
+            PoolProvider<?> other = (PoolProvider<?>) obj;
+            return key.equals(other.key)
+                    && maxSize == other.maxSize
+                    && idleTimeoutNanos == other.idleTimeoutNanos;
+        }
+
+        @Override
+        public int hashCode() {
+            // idleTimeoutNanos is left out since it may be set after the binding is created
+            return 31*key.hashCode() + maxSize;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Key;
+
+/**
+ * SPI for {@link PoolBinder} bindings.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public interface PoolBinding<T> {
+    /**
+     * @return The key wrapped by the {@link Pool Pool&lt;T&gt;} binding.
+     */
+    Key<T> getTargetKey();
+
+    /**
+     * @return The maximum number of instances the pool leases out at once.
+     */
+    int getMaxSize();
+
+    /**
+     * @param unit The unit to return the timeout in.
+     * @return How long an instance may sit idle before it is evicted, or zero if idle instances are never evicted.
+     */
+    long getIdleTimeout(TimeUnit unit);
+}
@@ -0,0 +1,70 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A lease on an instance borrowed from a {@link Pool}. The instance is returned to the pool when the lease is closed,
+ * so the usual pattern is
+ *
+ * <pre>
+ * try (Pooled&lt;Parser&gt; parser = parserPool.borrow()) {
+ *     parser.get().parse(input);
+ * }
+ * </pre>
+ *
+ * <p>
+ * A lease is meant to be used by a single thread, and must not be used after it is closed.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class Pooled<T> implements AutoCloseable {
+    private final Pool<T> pool;
+    private T instance;
+    private boolean closed = false;
+
+    Pooled(Pool<T> pool, T instance) {
+        this.pool = pool;
+        this.instance = instance;
+    }
+
+    /**
+     * @return The borrowed instance.
+     * @throws IllegalStateException If this lease has already been closed.
+     */
+    public T get() {
+        checkState(!closed, "This lease has already been closed");
+        return instance;
+    }
+
+    /**
+     * Return the borrowed instance to its {@link Pool}. Closing a lease more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pool.release(instance);
+            instance = null;
+        }
+    }
+}
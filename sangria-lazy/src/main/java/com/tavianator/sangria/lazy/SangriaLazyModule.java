@@ -23,12 +23,13 @@ import com.google.inject.AbstractModule;
  * Module for lazy initialization features.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.2
+ * @version 1.4
  * @since 1.2
  */
 public class SangriaLazyModule extends AbstractModule {
     @Override
     protected void configure() {
         bindScope(LazySingleton.class, LazyScopes.LAZY_SINGLETON);
+        bindScope(SoftSingleton.class, LazyScopes.SOFT_SINGLETON);
     }
 }
@@ -0,0 +1,45 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.lang.ref.SoftReference;
+import javax.inject.Scope;
+
+import static java.lang.annotation.ElementType.*;
+import static java.lang.annotation.RetentionPolicy.*;
+
+/**
+ * Like {@link LazySingleton}, but the instance is only held through a {@link SoftReference}, and rebuilt if the
+ * garbage collector reclaims it. Useful for large structures that can be derived again, like lookup tables or
+ * compiled templates. Instances must not hold state that can't be rebuilt, since other objects may see a different
+ * instance after a rebuild.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ * @see LazyScopes#SOFT_SINGLETON
+ */
+@Scope
+@Documented
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+public @interface SoftSingleton {
+}
@@ -0,0 +1,114 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Scope;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LazyScopes#evictingAfterIdle(long, TimeUnit)}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class IdleEvictionTest {
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private static class Resource implements AutoCloseable {
+        volatile boolean closed = false;
+
+        Resource() {
+            INSTANCES.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static Injector createInjector(final Scope scope) {
+        return Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Resource.class).in(scope);
+            }
+        });
+    }
+
+    @Test
+    public void testEviction() throws InterruptedException {
+        Injector injector = createInjector(LazyScopes.evictingAfterIdle(50, TimeUnit.MILLISECONDS));
+        int before = INSTANCES.get();
+
+        Resource resource = injector.getInstance(Resource.class);
+        assertThat(INSTANCES.get(), equalTo(before + 1));
+        assertThat(injector.getInstance(Resource.class), sameInstance(resource));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!resource.closed && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(resource.closed);
+
+        Resource rebuilt = injector.getInstance(Resource.class);
+        assertThat(rebuilt, not(sameInstance(resource)));
+        assertThat(INSTANCES.get(), equalTo(before + 2));
+        assertFalse(rebuilt.closed);
+    }
+
+    @Test
+    public void testAccessKeepsAlive() throws InterruptedException {
+        Injector injector = createInjector(LazyScopes.evictingAfterIdle(200, TimeUnit.MILLISECONDS));
+
+        Resource resource = injector.getInstance(Resource.class);
+        for (int i = 0; i < 40; ++i) {
+            Thread.sleep(10);
+            assertThat(injector.getInstance(Resource.class), sameInstance(resource));
+        }
+        assertFalse(resource.closed);
+    }
+
+    @Test
+    public void testLazy() {
+        int before = INSTANCES.get();
+        createInjector(LazyScopes.evictingAfterIdle(1, TimeUnit.MINUTES));
+        assertThat(INSTANCES.get(), equalTo(before));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveTimeout() {
+        LazyScopes.evictingAfterIdle(0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(LazyScopes.evictingAfterIdle(5, TimeUnit.MINUTES).toString(),
+                equalTo("LazyScopes.evictingAfterIdle(5, MINUTES)"));
+    }
+}
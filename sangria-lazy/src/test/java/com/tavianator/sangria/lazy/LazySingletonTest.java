@@ -23,10 +23,14 @@ import javax.inject.Provider;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Stage;
 import org.junit.Test;
 
+import com.tavianator.sangria.test.StressReport;
+import com.tavianator.sangria.test.StressTester;
+
 import static com.tavianator.sangria.test.SangriaMatchers.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -78,6 +82,13 @@ public class LazySingletonTest {
         assertThat(Scoped.INSTANCES.get(), equalTo(before + 1));
     }
 
+    @Test
+    public void testConcurrency() {
+        StressReport report = StressTester.forKey(Key.get(Scoped.class))
+                .run(new SangriaLazyModule());
+        assertThat(report, is(singleInstanceUnderStress()));
+    }
+
     @Test
     public void testBestPractices() {
         Module module = new AbstractModule() {
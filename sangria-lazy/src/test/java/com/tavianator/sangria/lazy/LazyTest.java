@@ -33,12 +33,16 @@ import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.ProvidedBy;
 import com.google.inject.Provider;
+import com.google.inject.Provides;
 import com.google.inject.spi.DefaultBindingTargetVisitor;
 import com.google.inject.spi.Element;
 import com.google.inject.spi.Elements;
 import com.google.inject.util.Providers;
 import org.junit.Test;
 
+import com.tavianator.sangria.test.StressReport;
+import com.tavianator.sangria.test.StressTester;
+
 import static com.tavianator.sangria.test.SangriaMatchers.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -183,6 +187,28 @@ public class LazyTest {
         test(Guice.createInjector(BIND_TOGETHER_MODULE), HasSimpleLazy.class);
     }
 
+    private static final Module SHARED_LAZY_MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            bind(HasLazy.class)
+                    .in(Singleton.class);
+        }
+
+        @Provides
+        @Simple
+        Abstract getResolved(HasLazy hasLazy) {
+            return hasLazy.lazy.get();
+        }
+    };
+
+    @Test
+    public void testConcurrentResolution() {
+        // Every thread resolves the same Lazy<T> at once; resolving it twice would produce a second instance
+        StressReport report = StressTester.forKey(Key.get(Abstract.class, Simple.class))
+                .run(SHARED_LAZY_MODULE);
+        assertThat(report, is(singleInstanceUnderStress()));
+    }
+
     @Test
     public void testBestPractices() {
         Module module = new AbstractModule() {
@@ -0,0 +1,142 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LazyTrace} and {@link LazyWarmup}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class LazyTraceTest {
+    public @Rule ExpectedException thrown = ExpectedException.none();
+
+    private static final AtomicInteger SINGLETONS = new AtomicInteger();
+    private static final AtomicInteger UNUSED = new AtomicInteger();
+
+    @LazySingleton
+    private static class Used {
+        @Inject
+        Used() {
+            SINGLETONS.incrementAndGet();
+        }
+    }
+
+    @LazySingleton
+    private static class Unused {
+        @Inject
+        Unused() {
+            UNUSED.incrementAndGet();
+        }
+    }
+
+    private static class HasLazy {
+        @Inject Lazy<Used> used;
+        @Inject Lazy<Unused> unused;
+    }
+
+    private static final Module MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            install(new SangriaLazyModule());
+            bind(HasLazy.class);
+            bind(Used.class);
+            bind(Unused.class);
+            LazyBinder.create(binder())
+                    .bind(String.class)
+                    .annotatedWith(Names.named("lazy"))
+                    .toInstance("lazy");
+        }
+    };
+
+    @Test
+    public void testRecordAndWarmUp() throws Exception {
+        Injector injector = Guice.createInjector(MODULE);
+
+        LazyTrace trace = LazyTrace.record(1, TimeUnit.MINUTES);
+        try {
+            assertThat(trace.isRecording(), is(true));
+            injector.getInstance(HasLazy.class).used.get();
+            injector.getInstance(Key.get(new com.google.inject.TypeLiteral<Lazy<String>>() { }, Names.named("lazy")))
+                    .get();
+        } finally {
+            trace.stop();
+        }
+        assertThat(trace.isRecording(), is(false));
+
+        // Recording has stopped
+        injector.getInstance(HasLazy.class).unused.get();
+
+        assertThat(trace.getKeys(), contains(
+                (Key) Key.get(Used.class),
+                Key.get(String.class, Names.named("lazy"))));
+
+        Path file = Files.createTempFile("sangria", ".trace");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            trace.save(file);
+
+            int singletons = SINGLETONS.get();
+            int unused = UNUSED.get();
+
+            Injector newInjector = Guice.createInjector(MODULE);
+            assertThat(LazyWarmup.warmUp(newInjector, file, executor), equalTo(2));
+            assertThat(SINGLETONS.get(), equalTo(singletons + 1));
+            assertThat(UNUSED.get(), equalTo(unused));
+
+            newInjector.getInstance(HasLazy.class).used.get();
+            assertThat(SINGLETONS.get(), equalTo(singletons + 1));
+        } finally {
+            executor.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testOneAtATime() {
+        LazyTrace trace = LazyTrace.record(1, TimeUnit.MINUTES);
+        try {
+            thrown.expect(IllegalStateException.class);
+            LazyTrace.record(1, TimeUnit.MINUTES);
+        } finally {
+            trace.stop();
+        }
+    }
+}
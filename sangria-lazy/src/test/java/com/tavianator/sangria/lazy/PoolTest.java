@@ -0,0 +1,307 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import org.junit.Test;
+
+import static com.tavianator.sangria.test.SangriaMatchers.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link Pool} injection.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class PoolTest {
+    @Retention(RetentionPolicy.RUNTIME)
+    @Qualifier
+    private @interface Simple {
+    }
+
+    private static class Expensive {
+        @Inject
+        Expensive() {
+        }
+    }
+
+    private static class HasPool {
+        final Pool<Expensive> pool;
+
+        @Inject
+        HasPool(@Simple Pool<Expensive> pool) {
+            this.pool = pool;
+        }
+    }
+
+    private static final Module MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            bind(Expensive.class)
+                    .annotatedWith(Simple.class)
+                    .to(Expensive.class);
+
+            PoolBinder.create(binder())
+                    .bind(Expensive.class)
+                    .annotatedWith(Simple.class)
+                    .withMaxSize(2);
+
+            bind(HasPool.class);
+        }
+    };
+
+    @Test
+    public void testReuse() throws InterruptedException {
+        Pool<Expensive> pool = Guice.createInjector(MODULE).getInstance(HasPool.class).pool;
+        assertThat(pool.getMaxSize(), equalTo(2));
+
+        Expensive instance;
+        try (Pooled<Expensive> pooled = pool.borrow()) {
+            instance = pooled.get();
+        }
+        assertThat(pool.getIdleCount(), equalTo(1));
+
+        try (Pooled<Expensive> pooled = pool.borrow()) {
+            assertThat(pooled.get(), sameInstance(instance));
+            assertThat(pool.getIdleCount(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void testSingletonPool() {
+        Injector injector = Guice.createInjector(MODULE);
+        assertThat(injector.getInstance(HasPool.class).pool, sameInstance(injector.getInstance(HasPool.class).pool));
+    }
+
+    @Test
+    public void testMaxSize() throws InterruptedException {
+        Pool<Expensive> pool = Guice.createInjector(MODULE).getInstance(HasPool.class).pool;
+
+        List<Pooled<Expensive>> leases = new ArrayList<>();
+        for (int i = 0; i < 2; ++i) {
+            leases.add(pool.borrow());
+        }
+        assertThat(leases.get(0).get(), not(sameInstance(leases.get(1).get())));
+        assertThat(pool.getLeasedCount(), equalTo(2));
+        assertThat(pool.tryBorrow(), nullValue());
+        assertThat(pool.tryBorrow(1, TimeUnit.MILLISECONDS), nullValue());
+
+        Expensive returned = leases.get(0).get();
+        leases.get(0).close();
+        leases.get(0).close();
+        assertThat(pool.getLeasedCount(), equalTo(1));
+
+        try (Pooled<Expensive> pooled = pool.tryBorrow()) {
+            assertThat(pooled.get(), sameInstance(returned));
+            assertThat(pool.tryBorrow(), nullValue());
+        }
+
+        leases.get(1).close();
+        assertThat(pool.getIdleCount(), equalTo(2));
+        assertThat(pool.getLeasedCount(), equalTo(0));
+    }
+
+    @Test
+    public void testBlockingBorrow() throws InterruptedException {
+        final Pool<Expensive> pool = Guice.createInjector(MODULE).getInstance(HasPool.class).pool;
+        final Pooled<Expensive> first = pool.borrow();
+        Pooled<Expensive> second = pool.borrow();
+
+        Thread returner = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                first.close();
+            }
+        };
+        returner.start();
+
+        try (Pooled<Expensive> third = pool.borrow()) {
+            assertThat(third.get(), not(sameInstance(second.get())));
+        }
+        returner.join();
+        second.close();
+    }
+
+    @Test
+    public void testIdleEviction() throws InterruptedException {
+        Pool<Expensive> pool = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Expensive.class);
+
+                PoolBinder.create(binder())
+                        .bind(Expensive.class)
+                        .withMaxSize(2)
+                        .evictingIdleAfter(1, TimeUnit.MILLISECONDS);
+            }
+        }).getInstance(new Key<Pool<Expensive>>() { });
+
+        Expensive instance;
+        try (Pooled<Expensive> pooled = pool.borrow()) {
+            instance = pooled.get();
+        }
+
+        Thread.sleep(10);
+
+        try (Pooled<Expensive> pooled = pool.borrow()) {
+            assertThat(pooled.get(), not(sameInstance(instance)));
+        }
+    }
+
+    private static class Resource implements AutoCloseable {
+        boolean closed = false;
+
+        @Inject
+        Resource() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testEvictionCloses() throws InterruptedException {
+        Pool<Resource> pool = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Resource.class);
+
+                PoolBinder.create(binder())
+                        .bind(Resource.class)
+                        .withMaxSize(2)
+                        .evictingIdleAfter(1, TimeUnit.MILLISECONDS);
+            }
+        }).getInstance(new Key<Pool<Resource>>() { });
+
+        Resource first;
+        try (Pooled<Resource> pooled = pool.borrow()) {
+            first = pooled.get();
+        }
+        assertThat(first.closed, is(false));
+
+        Thread.sleep(10);
+
+        pool.evictExpired();
+        assertThat(first.closed, is(true));
+        assertThat(pool.getIdleCount(), equalTo(0));
+
+        Resource second;
+        try (Pooled<Resource> pooled = pool.borrow()) {
+            second = pooled.get();
+        }
+
+        Thread.sleep(10);
+
+        try (Pooled<Resource> pooled = pool.borrow()) {
+            assertThat(pooled.get(), not(sameInstance(second)));
+            assertThat(second.closed, is(true));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUseAfterClose() throws InterruptedException {
+        Pool<Expensive> pool = Guice.createInjector(MODULE).getInstance(HasPool.class).pool;
+        Pooled<Expensive> pooled = pool.borrow();
+        pooled.close();
+        pooled.close();
+        pooled.get();
+    }
+
+    @Test
+    public void testBestPractices() {
+        assertThat(MODULE, is(atomic()));
+        assertThat(MODULE, followsBestPractices());
+    }
+
+    @Test(expected = CreationException.class)
+    public void testIncompleteEdsl() {
+        Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Expensive.class);
+
+                PoolBinder.create(binder())
+                        .bind(Expensive.class);
+            }
+        });
+    }
+
+    private static class TestVisitor<T> extends DefaultBindingTargetVisitor<T, Boolean> implements PoolBindingVisitor<T, Boolean> {
+        @Override
+        public Boolean visit(PoolBinding<? extends T> binding) {
+            assertThat(binding.getTargetKey().equals(new Key<Expensive>(Simple.class) { }), is(true));
+            assertThat(binding.getMaxSize(), equalTo(2));
+            assertThat(binding.getIdleTimeout(TimeUnit.SECONDS), equalTo(0L));
+            return true;
+        }
+
+        @Override
+        protected Boolean visitOther(Binding<? extends T> binding) {
+            return false;
+        }
+    }
+
+    private <T> boolean visit(Binding<T> binding) {
+        return binding.acceptTargetVisitor(new TestVisitor<T>());
+    }
+
+    @Test
+    public void testExtensionSpi() {
+        List<Element> elements = Elements.getElements(MODULE);
+
+        int passed = 0;
+        for (Element element : elements) {
+            if (element instanceof Binding) {
+                if (visit((Binding<?>)element)) {
+                    ++passed;
+                }
+            }
+        }
+        assertThat(passed, equalTo(1));
+
+        Injector injector = Guice.createInjector(Elements.getModule(elements));
+        assertThat(visit(injector.getBinding(new Key<Pool<Expensive>>(Simple.class) { })), is(true));
+        assertThat(visit(injector.getBinding(new Key<Expensive>(Simple.class) { })), is(false));
+    }
+}
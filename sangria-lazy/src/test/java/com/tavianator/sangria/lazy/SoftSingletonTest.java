@@ -0,0 +1,116 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.lazy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provides;
+import com.google.inject.Stage;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import org.junit.Test;
+
+import com.tavianator.sangria.test.StressTester;
+
+import static com.tavianator.sangria.test.SangriaMatchers.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link SoftSingleton} scope.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class SoftSingletonTest {
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    @SoftSingleton
+    private static class Scoped {
+        @Inject
+        Scoped() {
+            INSTANCES.incrementAndGet();
+        }
+    }
+
+    private static final Module MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            install(new SangriaLazyModule());
+            bind(Scoped.class);
+        }
+
+        @Provides
+        @SoftSingleton
+        @Named("null")
+        String provideNull() {
+            INSTANCES.incrementAndGet();
+            return null;
+        }
+    };
+
+    @Test
+    public void testLazy() {
+        int before = INSTANCES.get();
+
+        Injector injector = Guice.createInjector(Stage.PRODUCTION, MODULE);
+        assertThat(INSTANCES.get(), equalTo(before));
+
+        Scoped instance = injector.getInstance(Scoped.class);
+        assertThat(INSTANCES.get(), equalTo(before + 1));
+        assertThat(injector.getInstance(Scoped.class), sameInstance(instance));
+        assertThat(INSTANCES.get(), equalTo(before + 1));
+    }
+
+    @Test
+    public void testNull() {
+        Injector injector = Guice.createInjector(MODULE);
+        Key<String> key = Key.get(String.class, Names.named("null"));
+
+        int before = INSTANCES.get();
+        assertThat(injector.getInstance(key), is(nullValue()));
+        assertThat(injector.getInstance(key), is(nullValue()));
+        assertThat(INSTANCES.get(), equalTo(before + 1));
+    }
+
+    @Test
+    public void testConcurrency() {
+        assertThat(StressTester.forKey(Key.get(Scoped.class)).run(MODULE), is(singleInstanceUnderStress()));
+    }
+
+    @Test
+    public void testBestPractices() {
+        Module module = new AbstractModule() {
+            @Override
+            protected void configure() {
+                install(new SangriaLazyModule());
+                bind(Scoped.class);
+            }
+        };
+
+        assertThat(module, is(atomic()));
+        assertThat(module, followsBestPractices());
+    }
+}
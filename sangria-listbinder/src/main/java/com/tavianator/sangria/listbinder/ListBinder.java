@@ -40,6 +40,7 @@ import com.google.inject.util.Types;
 import com.tavianator.sangria.core.PotentialAnnotation;
 import com.tavianator.sangria.core.PrettyTypes;
 import com.tavianator.sangria.core.Priority;
+import com.tavianator.sangria.core.Tracer;
 import com.tavianator.sangria.core.TypeLiterals;
 import com.tavianator.sangria.core.UniqueAnnotations;
 
@@ -103,7 +104,7 @@ import com.tavianator.sangria.core.UniqueAnnotations;
  *
  * @param <T> The type of the list element.
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.1
+ * @version 1.4
  * @since 1.1
  */
 public class ListBinder<T> {
@@ -258,7 +259,7 @@ public class ListBinder<T> {
             binder.bind(listBinder.listOfProvidersKey)
                     .toProvider(new ListOfProvidersProvider<>(listBinder));
             binder.bind(listBinder.listKey)
-                    .toProvider(new ListOfProvidersAdapter<>(listBinder.listOfProvidersKey));
+                    .toProvider(new ListOfProvidersAdapter<>(listBinder.listKey, listBinder.listOfProvidersKey));
 
             return listBinder;
         }
@@ -357,10 +358,12 @@ public class ListBinder<T> {
      * Provider implementation for {@code List&lt;T&gt;}, in terms of {@code List&lt;Provider&lt;T&gt;&gt;}.
      */
     private static class ListOfProvidersAdapter<T> implements Provider<List<T>> {
+        private final Key<List<T>> listKey;
         private final Key<List<Provider<T>>> providerListKey;
         private Provider<List<Provider<T>>> provider;
 
-        ListOfProvidersAdapter(Key<List<Provider<T>>> providerListKey) {
+        ListOfProvidersAdapter(Key<List<T>> listKey, Key<List<Provider<T>>> providerListKey) {
+            this.listKey = listKey;
             this.providerListKey = providerListKey;
         }
 
@@ -371,6 +374,18 @@ public class ListBinder<T> {
 
         @Override
         public List<T> get() {
+            Tracer tracer = Tracer.get();
+            Object trace = tracer.isEnabled() ? tracer.beginListMaterialization(listKey) : null;
+            if (trace != null) {
+                List<T> list = materialize();
+                tracer.endListMaterialization(trace, list.size());
+                return list;
+            } else {
+                return materialize();
+            }
+        }
+
+        private List<T> materialize() {
             return FluentIterable.from(provider.get())
                     .transform(new Function<Provider<T>, T>() {
                         @Override
@@ -23,11 +23,13 @@ import java.util.*;
 import javax.inject.Provider;
 import javax.inject.Qualifier;
 
+import com.google.common.base.Predicates;
 import com.google.inject.AbstractModule;
 import com.google.inject.CreationException;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.Module;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Names;
 import org.junit.Rule;
@@ -35,7 +37,10 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import com.tavianator.sangria.core.TypeLiterals;
+import com.tavianator.sangria.test.StressReport;
+import com.tavianator.sangria.test.StressTester;
 
+import static com.tavianator.sangria.test.SangriaMatchers.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
@@ -122,6 +127,27 @@ public class ListBinderTest {
         assertThat(list, contains("a", "b", "c", "d"));
     }
 
+    private static Module listModule(final int priority, final String... values) {
+        return new AbstractModule() {
+            @Override
+            protected void configure() {
+                ListBinder<String> listBinder = ListBinder.build(binder(), String.class)
+                        .withPriority(priority);
+                for (String value : values) {
+                    listBinder.addBinding().toInstance(value);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testOrderingUnderStress() {
+        StressReport report = StressTester.forKey(Key.get(LIST_OF_STRINGS))
+                .checking(Predicates.<List<String>>equalTo(Arrays.asList("a", "b", "c", "d", "e", "f")))
+                .run(listModule(2, "e", "f"), listModule(0, "a", "b"), listModule(1, "c", "d"));
+        assertThat(report, is(consistentUnderStress()));
+    }
+
     @Test
     public void testConflictingDefaultPriorities() {
         thrown.expect(CreationException.class);
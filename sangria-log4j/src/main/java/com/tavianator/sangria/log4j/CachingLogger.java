@@ -0,0 +1,161 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.log4j;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+import org.apache.logging.log4j.spi.ExtendedLoggerWrapper;
+
+/**
+ * A {@link org.apache.logging.log4j.Logger} that caches whether each standard level is enabled, until {@link
+ * LevelCaches#invalidate()} is called. Level checks with a {@link Marker} or a custom {@link Level} aren't cached, and
+ * the message is assumed not to affect whether a level is enabled.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class CachingLogger extends ExtendedLoggerWrapper {
+    private static final long serialVersionUID = 1L;
+
+    private static final Level[] LEVELS = {
+        Level.OFF, Level.FATAL, Level.ERROR, Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE, Level.ALL,
+    };
+
+    /**
+     * The cached level checks: the {@link LevelCaches#version()} in the high 32 bits, then a byte of levels that have
+     * been checked, and a byte of levels that are enabled.
+     */
+    private transient volatile long state = 0;
+
+    CachingLogger(ExtendedLogger logger) {
+        super(logger, logger.getName(), logger.getMessageFactory());
+    }
+
+    /**
+     * @return The cache index of a level, or -1 if it isn't cached.
+     */
+    private static int indexOf(Level level) {
+        for (int i = 0; i < LEVELS.length; ++i) {
+            if (LEVELS[i] == level) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The cached state of a level: 1 if enabled, 0 if disabled, or -1 if unknown.
+     */
+    private int getCached(int index) {
+        long current = state;
+        if ((int)(current >>> 32) == LevelCaches.version() && (current & (1L << (index + 8))) != 0) {
+            return (int)(current >>> index) & 1;
+        } else {
+            return -1;
+        }
+    }
+
+    private boolean putCached(int index, boolean enabled) {
+        int version = LevelCaches.version();
+        long current = state;
+        if ((int)(current >>> 32) != version) {
+            current = (long)version << 32;
+        }
+
+        current |= 1L << (index + 8);
+        if (enabled) {
+            current |= 1L << index;
+        }
+        // Racing updates may lose each other's bits, but that just means checking again later
+        state = current;
+        return enabled;
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, Message message, Throwable t) {
+        int index = marker == null ? indexOf(level) : -1;
+        if (index < 0) {
+            return super.isEnabled(level, marker, message, t);
+        }
+
+        int cached = getCached(index);
+        if (cached < 0) {
+            return putCached(index, super.isEnabled(level, marker, message, t));
+        }
+        return cached != 0;
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, Object message, Throwable t) {
+        int index = marker == null ? indexOf(level) : -1;
+        if (index < 0) {
+            return super.isEnabled(level, marker, message, t);
+        }
+
+        int cached = getCached(index);
+        if (cached < 0) {
+            return putCached(index, super.isEnabled(level, marker, message, t));
+        }
+        return cached != 0;
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, String message) {
+        int index = marker == null ? indexOf(level) : -1;
+        if (index < 0) {
+            return super.isEnabled(level, marker, message);
+        }
+
+        int cached = getCached(index);
+        if (cached < 0) {
+            return putCached(index, super.isEnabled(level, marker, message));
+        }
+        return cached != 0;
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, String message, Object... params) {
+        int index = marker == null ? indexOf(level) : -1;
+        if (index < 0) {
+            return super.isEnabled(level, marker, message, params);
+        }
+
+        int cached = getCached(index);
+        if (cached < 0) {
+            return putCached(index, super.isEnabled(level, marker, message, params));
+        }
+        return cached != 0;
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, String message, Throwable t) {
+        int index = marker == null ? indexOf(level) : -1;
+        if (index < 0) {
+            return super.isEnabled(level, marker, message, t);
+        }
+
+        int cached = getCached(index);
+        if (cached < 0) {
+            return putCached(index, super.isEnabled(level, marker, message, t));
+        }
+        return cached != 0;
+    }
+}
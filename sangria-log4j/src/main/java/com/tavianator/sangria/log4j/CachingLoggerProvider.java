@@ -0,0 +1,73 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.log4j;
+
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.InjectionPoint;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+
+import com.tavianator.sangria.contextual.DependencySensitiveProvider;
+
+/**
+ * {@link Logger} provider implementation for loggers with cached level checks.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class CachingLoggerProvider implements DependencySensitiveProvider<Logger> {
+    private final DependencySensitiveProvider<Logger> loggers;
+
+    CachingLoggerProvider(DependencySensitiveProvider<Logger> loggers) {
+        this.loggers = loggers;
+    }
+
+    @Override
+    public Logger getInContext(InjectionPoint injectionPoint) {
+        return new CachingLogger((ExtendedLogger)loggers.getInContext(injectionPoint));
+    }
+
+    @Override
+    public Logger getForDependency(Dependency<?> dependency) {
+        return new CachingLogger((ExtendedLogger)loggers.getForDependency(dependency));
+    }
+
+    @Override
+    public Logger getInUnknownContext() {
+        return new CachingLogger((ExtendedLogger)loggers.getInUnknownContext());
+    }
+
+    // Allow binding de-duplication
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof CachingLoggerProvider)) {
+            return false;
+        }
+
+        CachingLoggerProvider other = (CachingLoggerProvider)obj;
+        return loggers.equals(other.loggers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31*loggers.hashCode();
+    }
+}
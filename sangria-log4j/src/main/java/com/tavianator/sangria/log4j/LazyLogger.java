@@ -0,0 +1,102 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.log4j;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.MessageFactory;
+import org.apache.logging.log4j.spi.AbstractLogger;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+
+/**
+ * A {@link org.apache.logging.log4j.Logger} that looks up the real logger the first time it is used. {@link
+ * #getName()} and {@link #getMessageFactory()} don't count as uses.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class LazyLogger extends AbstractLogger {
+    private static final long serialVersionUID = 1L;
+
+    private final Class<?> type;
+    private transient volatile ExtendedLogger delegate;
+
+    /**
+     * @param type The class to get the logger for, or {@code null} for the root logger.
+     * @param messageFactory The {@link MessageFactory} to use, or {@code null} for the default one.
+     */
+    LazyLogger(Class<?> type, MessageFactory messageFactory) {
+        super(type == null ? LogManager.ROOT_LOGGER_NAME : type.getName(), messageFactory);
+        this.type = type;
+    }
+
+    private ExtendedLogger delegate() {
+        ExtendedLogger result = delegate;
+        if (result == null) {
+            // Racing threads may both look the logger up, but they'll get the same one
+            result = (ExtendedLogger)(type == null ? LogManager.getRootLogger() : LogManager.getLogger(type));
+            delegate = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return Whether the real logger has been looked up yet.
+     */
+    boolean isResolved() {
+        return delegate != null;
+    }
+
+    @Override
+    public Level getLevel() {
+        return delegate().getLevel();
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, Message message, Throwable t) {
+        return delegate().isEnabled(level, marker, message, t);
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, Object message, Throwable t) {
+        return delegate().isEnabled(level, marker, message, t);
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, String message, Throwable t) {
+        return delegate().isEnabled(level, marker, message, t);
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, String message) {
+        return delegate().isEnabled(level, marker, message);
+    }
+
+    @Override
+    public boolean isEnabled(Level level, Marker marker, String message, Object... params) {
+        return delegate().isEnabled(level, marker, message, params);
+    }
+
+    @Override
+    public void logMessage(String fqcn, Level level, Marker marker, Message message, Throwable t) {
+        delegate().logMessage(fqcn, level, marker, message, t);
+    }
+}
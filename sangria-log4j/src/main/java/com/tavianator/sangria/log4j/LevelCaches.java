@@ -0,0 +1,50 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.log4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controls the level-check caches of loggers injected with {@link SangriaLog4jModule#withCachedLevelChecks()}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class LevelCaches {
+    private static final AtomicInteger VERSION = new AtomicInteger();
+
+    private LevelCaches() {
+        // Not for instantiating
+    }
+
+    /**
+     * Invalidate every cached level check. Call this whenever the logging configuration changes, for example after
+     * the backend reloads its configuration file.
+     */
+    public static void invalidate() {
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * @return The current cache version.
+     */
+    static int version() {
+        return VERSION.get();
+    }
+}
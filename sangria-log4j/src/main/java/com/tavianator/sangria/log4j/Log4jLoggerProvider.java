@@ -17,35 +17,206 @@
 
 package com.tavianator.sangria.log4j;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.inject.Singleton;
 
 import com.google.inject.Inject;
+import com.google.inject.spi.Dependency;
 import com.google.inject.spi.InjectionPoint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.MessageFactory;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+import org.apache.logging.log4j.spi.ExtendedLoggerWrapper;
 
-import com.tavianator.sangria.contextual.ContextSensitiveProvider;
+import com.tavianator.sangria.contextual.DependencySensitiveProvider;
 
 /**
  * Actual {@link Logger} provider implementation.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.0
+ * @version 1.4
  * @since 1.0
  */
 @Singleton
-class Log4jLoggerProvider implements ContextSensitiveProvider<Logger> {
+class Log4jLoggerProvider implements DependencySensitiveProvider<Logger> {
+    private final ConcurrentMap<Class<? extends MessageFactory>, MessageFactory> factories = new ConcurrentHashMap<>();
+    private final ConcurrentMap<LoggerKey, Logger> loggers = new ConcurrentHashMap<>();
+
+    private final boolean lazy;
+
     @Inject
     Log4jLoggerProvider() {
+        this(false);
+    }
+
+    /**
+     * @param lazy Whether to defer creating the real loggers until they're used.
+     */
+    Log4jLoggerProvider(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Cache key for loggers with custom {@link MessageFactory}s.
+     */
+    private static class LoggerKey {
+        final Class<?> type;
+        final Class<? extends MessageFactory> factoryType;
+
+        LoggerKey(Class<?> type, Class<? extends MessageFactory> factoryType) {
+            this.type = type;
+            this.factoryType = factoryType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof LoggerKey)) {
+                return false;
+            }
+
+            LoggerKey other = (LoggerKey)obj;
+            return type.equals(other.type)
+                    && factoryType.equals(other.factoryType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31*type.hashCode() + factoryType.hashCode();
+        }
     }
 
     @Override
     public Logger getInContext(InjectionPoint injectionPoint) {
-        return LogManager.getLogger(injectionPoint.getDeclaringType().getRawType());
+        return getLogger(injectionPoint.getDeclaringType().getRawType(), findMessageFactoryAnnotation(injectionPoint));
+    }
+
+    @Override
+    public Logger getForDependency(Dependency<?> dependency) {
+        Class<?> type = dependency.getInjectionPoint().getDeclaringType().getRawType();
+        return getLogger(type, findMessageFactoryAnnotation(dependency));
+    }
+
+    private Logger getLogger(Class<?> type, WithMessageFactory annotation) {
+        if (lazy) {
+            return new LazyLogger(type, annotation == null ? null : getMessageFactory(annotation.value()));
+        } else if (annotation == null) {
+            return LogManager.getLogger(type);
+        }
+
+        LoggerKey key = new LoggerKey(type, annotation.value());
+        Logger logger = loggers.get(key);
+        if (logger == null) {
+            // Older versions of Log4j keep a single logger per name, regardless of the requested MessageFactory, so
+            // wrap the logger to be sure the factory is used
+            ExtendedLogger delegate = (ExtendedLogger)LogManager.getLogger(type);
+            logger = new ExtendedLoggerWrapper(delegate, delegate.getName(), getMessageFactory(annotation.value()));
+
+            Logger existing = loggers.putIfAbsent(key, logger);
+            if (existing != null) {
+                logger = existing;
+            }
+        }
+        return logger;
+    }
+
+    /**
+     * Find the {@link WithMessageFactory} annotation for the {@link Logger}s at an injection point, if any. Without
+     * the exact dependency, the {@link Logger}s must all agree.
+     */
+    private static WithMessageFactory findMessageFactoryAnnotation(InjectionPoint injectionPoint) {
+        WithMessageFactory result = null;
+        boolean found = false;
+        for (Dependency<?> dependency : injectionPoint.getDependencies()) {
+            if (dependency.getKey().getTypeLiteral().getRawType() == Logger.class) {
+                WithMessageFactory annotation = findMessageFactoryAnnotation(dependency);
+                if (found && !Objects.equals(annotation, result)) {
+                    throw new IllegalStateException("Ambiguous @WithMessageFactory Loggers at " + injectionPoint);
+                }
+                result = annotation;
+                found = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the {@link WithMessageFactory} annotation for a {@link Logger} dependency, if any.
+     */
+    private static WithMessageFactory findMessageFactoryAnnotation(Dependency<?> dependency) {
+        Member member = dependency.getInjectionPoint().getMember();
+        if (member instanceof Field) {
+            return ((Field)member).getAnnotation(WithMessageFactory.class);
+        }
+
+        Annotation[][] parameterAnnotations;
+        if (member instanceof Method) {
+            parameterAnnotations = ((Method)member).getParameterAnnotations();
+        } else {
+            parameterAnnotations = ((Constructor<?>)member).getParameterAnnotations();
+        }
+
+        for (Annotation annotation : parameterAnnotations[dependency.getParameterIndex()]) {
+            if (annotation instanceof WithMessageFactory) {
+                return (WithMessageFactory)annotation;
+            }
+        }
+        return null;
+    }
+
+    private MessageFactory getMessageFactory(Class<? extends MessageFactory> type) {
+        MessageFactory factory = factories.get(type);
+        if (factory == null) {
+            try {
+                factory = type.getDeclaredConstructor().newInstance();
+            } catch (InvocationTargetException e) {
+                throw new IllegalArgumentException("Couldn't create a " + type.getName(), e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Couldn't create a " + type.getName(), e);
+            }
+
+            MessageFactory existing = factories.putIfAbsent(type, factory);
+            if (existing != null) {
+                factory = existing;
+            }
+        }
+        return factory;
     }
 
     @Override
     public Logger getInUnknownContext() {
-        return LogManager.getRootLogger();
+        if (lazy) {
+            return new LazyLogger(null, null);
+        } else {
+            return LogManager.getRootLogger();
+        }
+    }
+
+    // Allow binding de-duplication; the caches don't affect behaviour
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof Log4jLoggerProvider)) {
+            return false;
+        }
+
+        Log4jLoggerProvider other = (Log4jLoggerProvider)obj;
+        return lazy == other.lazy;
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.valueOf(lazy).hashCode();
     }
 }
@@ -21,19 +21,93 @@ import com.google.inject.AbstractModule;
 import org.apache.logging.log4j.Logger;
 
 import com.tavianator.sangria.contextual.ContextSensitiveBinder;
+import com.tavianator.sangria.contextual.DependencySensitiveProvider;
+import com.tavianator.sangria.core.RateLimited;
+import com.tavianator.sangria.core.Sampled;
 
 /**
  * Module for Log4j {@link Logger} injection.
  *
+ * <p>
+ * Loggers for hot loops can be throttled with the {@link Sampled} and {@link RateLimited} qualifiers:
+ * </p>
+ *
+ * <pre>
+ * {@literal @}Inject {@literal @}Sampled(1000) Logger logger;
+ * </pre>
+ *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.0
+ * @version 1.4
  * @since 1.0
  */
 public class SangriaLog4jModule extends AbstractModule {
+    private final boolean lazy;
+    private final boolean cacheLevels;
+
+    /**
+     * Create a {@link SangriaLog4jModule} with the default options.
+     */
+    public SangriaLog4jModule() {
+        this(false, false);
+    }
+
+    private SangriaLog4jModule(boolean lazy, boolean cacheLevels) {
+        this.lazy = lazy;
+        this.cacheLevels = cacheLevels;
+    }
+
+    /**
+     * Defer creating loggers until they are first used. The injected loggers know their names, but the real logger is
+     * only looked up on the first call that logs or checks a level. Classes that never log never create a logger.
+     *
+     * @return A copy of this module that injects lazy loggers.
+     */
+    public SangriaLog4jModule withLazyLoggers() {
+        return new SangriaLog4jModule(true, cacheLevels);
+    }
+
+    /**
+     * Cache whether each standard level is enabled in the injected loggers, so that disabled log statements in tight
+     * loops cost a single volatile read. Call {@link LevelCaches#invalidate()} whenever the logging configuration
+     * changes.
+     *
+     * <p>
+     * Only level checks without a {@link org.apache.logging.log4j.Marker} are cached, and the cache assumes that
+     * filters don't make decisions based on the message itself.
+     * </p>
+     *
+     * @return A copy of this module that injects loggers with cached level checks.
+     */
+    public SangriaLog4jModule withCachedLevelChecks() {
+        return new SangriaLog4jModule(lazy, true);
+    }
+
     @Override
     protected void configure() {
-        ContextSensitiveBinder.create(binder())
+        ContextSensitiveBinder contextualBinder = ContextSensitiveBinder.create(binder());
+
+        DependencySensitiveProvider<Logger> loggers = new Log4jLoggerProvider(lazy);
+        if (cacheLevels) {
+            loggers = new CachingLoggerProvider(loggers);
+        }
+
+        if (lazy || cacheLevels) {
+            contextualBinder
+                    .bind(Logger.class)
+                    .toContextSensitiveProvider(loggers);
+        } else {
+            contextualBinder
+                    .bind(Logger.class)
+                    .toContextSensitiveProvider(Log4jLoggerProvider.class);
+        }
+
+        contextualBinder
+                .bind(Logger.class)
+                .annotatedWith(Sampled.class)
+                .toContextSensitiveProvider(new ThrottledLoggerProvider(Sampled.class, loggers));
+        contextualBinder
                 .bind(Logger.class)
-                .toContextSensitiveProvider(Log4jLoggerProvider.class);
+                .annotatedWith(RateLimited.class)
+                .toContextSensitiveProvider(new ThrottledLoggerProvider(RateLimited.class, loggers));
     }
 }
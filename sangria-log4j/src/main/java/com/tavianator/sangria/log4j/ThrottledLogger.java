@@ -0,0 +1,87 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.log4j;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+import org.apache.logging.log4j.spi.ExtendedLoggerWrapper;
+
+import com.tavianator.sangria.core.Throttle;
+
+/**
+ * A {@link org.apache.logging.log4j.Logger} that drops messages according to a {@link Throttle}. The throttle is only
+ * consulted for enabled messages, and before any {@link Message} is created for them.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class ThrottledLogger extends ExtendedLoggerWrapper {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Throttle throttle;
+
+    ThrottledLogger(ExtendedLogger logger, Throttle throttle) {
+        super(logger, logger.getName(), logger.getMessageFactory());
+        this.throttle = throttle;
+    }
+
+    /**
+     * @return The {@link Throttle} for this logger.
+     */
+    Throttle getThrottle() {
+        return throttle;
+    }
+
+    @Override
+    public void logIfEnabled(String fqcn, Level level, Marker marker, Message message, Throwable t) {
+        if (isEnabled(level, marker, message, t) && throttle.tryAcquire()) {
+            super.logIfEnabled(fqcn, level, marker, message, t);
+        }
+    }
+
+    @Override
+    public void logIfEnabled(String fqcn, Level level, Marker marker, Object message, Throwable t) {
+        if (isEnabled(level, marker, message, t) && throttle.tryAcquire()) {
+            super.logIfEnabled(fqcn, level, marker, message, t);
+        }
+    }
+
+    @Override
+    public void logIfEnabled(String fqcn, Level level, Marker marker, String message) {
+        if (isEnabled(level, marker, message) && throttle.tryAcquire()) {
+            super.logIfEnabled(fqcn, level, marker, message);
+        }
+    }
+
+    @Override
+    public void logIfEnabled(String fqcn, Level level, Marker marker, String message, Object... params) {
+        if (isEnabled(level, marker, message, params) && throttle.tryAcquire()) {
+            super.logIfEnabled(fqcn, level, marker, message, params);
+        }
+    }
+
+    @Override
+    public void logIfEnabled(String fqcn, Level level, Marker marker, String message, Throwable t) {
+        if (isEnabled(level, marker, message, t) && throttle.tryAcquire()) {
+            super.logIfEnabled(fqcn, level, marker, message, t);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.log4j;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.MessageFactory;
+
+/**
+ * Requests a {@link Logger} that creates its messages with a particular {@link MessageFactory}. For example, with a
+ * version of Log4j that supports garbage-free logging,
+ *
+ * <pre>
+ * {@literal @}Inject {@literal @}WithMessageFactory(ReusableMessageFactory.class) Logger logger;
+ * </pre>
+ *
+ * <p>
+ * This is not a binding annotation, so it can be combined with qualifiers like {@link
+ * com.tavianator.sangria.core.Sampled}. Loggers are cached per class and message factory, so every injection point in
+ * a class that requests the same factory shares one logger.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface WithMessageFactory {
+    /**
+     * @return The {@link MessageFactory} to use, which must have a public no-argument constructor.
+     */
+    Class<? extends MessageFactory> value();
+}
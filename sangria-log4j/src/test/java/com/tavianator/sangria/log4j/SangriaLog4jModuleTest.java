@@ -17,6 +17,8 @@
 
 package com.tavianator.sangria.log4j;
 
+import java.util.*;
+
 import javax.inject.Inject;
 import javax.inject.Provider;
 
@@ -24,11 +26,21 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Provides;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessageFactory;
+import org.apache.logging.log4j.message.StringFormatterMessageFactory;
+import org.apache.logging.log4j.spi.AbstractLogger;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.tavianator.sangria.core.RateLimited;
+import com.tavianator.sangria.core.Sampled;
+import com.tavianator.sangria.core.Throttle;
+
 import static com.tavianator.sangria.test.SangriaMatchers.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -43,6 +55,11 @@ import static org.junit.Assert.*;
 public class SangriaLog4jModuleTest {
     @Inject Logger logger;
     @Inject Provider<Logger> provider;
+    @Inject @Sampled(2) Logger sampledLogger;
+    @Inject @RateLimited(100) Logger rateLimitedLogger;
+    @Inject @WithMessageFactory(StringFormatterMessageFactory.class) Logger formatterLogger;
+    @Inject @WithMessageFactory(StringFormatterMessageFactory.class) Logger formatterLogger2;
+    @Inject @Sampled(2) @WithMessageFactory(StringFormatterMessageFactory.class) Logger sampledFormatterLogger;
 
     @Before
     public void setUp() {
@@ -59,6 +76,26 @@ public class SangriaLog4jModuleTest {
         assertThat(provider.get().getName(), equalTo(LogManager.ROOT_LOGGER_NAME));
     }
 
+    @Test
+    public void testThrottledLoggers() {
+        assertThat(sampledLogger, instanceOf(ThrottledLogger.class));
+        assertThat(sampledLogger.getName(), equalTo(SangriaLog4jModuleTest.class.getName()));
+        assertThat(rateLimitedLogger, instanceOf(ThrottledLogger.class));
+        assertThat(rateLimitedLogger.getName(), equalTo(SangriaLog4jModuleTest.class.getName()));
+    }
+
+    @Test
+    public void testMessageFactory() {
+        assertThat(formatterLogger.getName(), equalTo(SangriaLog4jModuleTest.class.getName()));
+        assertThat(formatterLogger.getMessageFactory(), instanceOf(StringFormatterMessageFactory.class));
+        assertThat(formatterLogger2, sameInstance(formatterLogger));
+
+        assertThat(sampledFormatterLogger, instanceOf(ThrottledLogger.class));
+        assertThat(sampledFormatterLogger.getMessageFactory(), instanceOf(StringFormatterMessageFactory.class));
+
+        assertThat(logger.getMessageFactory(), not(instanceOf(StringFormatterMessageFactory.class)));
+    }
+
     static class HasProviderMethod extends AbstractModule {
         @Override
         protected void configure() {
@@ -71,6 +108,50 @@ public class SangriaLog4jModuleTest {
         }
     }
 
+    static class HasSeveralLoggers {
+        final Logger formatter;
+        final Logger parameterized;
+        final Logger often;
+        final Logger rarely;
+
+        @Inject
+        HasSeveralLoggers(
+                @WithMessageFactory(StringFormatterMessageFactory.class) Logger formatter,
+                @WithMessageFactory(ParameterizedMessageFactory.class) Logger parameterized,
+                @Sampled(2) @WithMessageFactory(StringFormatterMessageFactory.class) Logger often,
+                @Sampled(1000) Logger rarely) {
+            this.formatter = formatter;
+            this.parameterized = parameterized;
+            this.often = often;
+            this.rarely = rarely;
+        }
+    }
+
+    @Test
+    public void testSeveralParameters() {
+        HasSeveralLoggers loggers = Guice.createInjector(new SangriaLog4jModule()).getInstance(HasSeveralLoggers.class);
+
+        assertThat(loggers.formatter.getMessageFactory(), instanceOf(StringFormatterMessageFactory.class));
+        assertThat(loggers.parameterized.getMessageFactory(), instanceOf(ParameterizedMessageFactory.class));
+
+        assertThat(((ThrottledLogger)loggers.often).getThrottle().toString(), equalTo("Throttle.sampling(2)"));
+        assertThat(loggers.often.getMessageFactory(), instanceOf(StringFormatterMessageFactory.class));
+        assertThat(((ThrottledLogger)loggers.rarely).getThrottle().toString(), equalTo("Throttle.sampling(1000)"));
+        assertThat(loggers.rarely.getMessageFactory(), not(instanceOf(StringFormatterMessageFactory.class)));
+    }
+
+    @Test
+    public void testThrottlesSharedBetweenInstances() {
+        Injector injector = Guice.createInjector(new SangriaLog4jModule());
+        HasSeveralLoggers first = injector.getInstance(HasSeveralLoggers.class);
+        HasSeveralLoggers second = injector.getInstance(HasSeveralLoggers.class);
+
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second.often, sameInstance(first.often));
+        assertThat(second.rarely, sameInstance(first.rarely));
+        assertThat(first.often, not(sameInstance(first.rarely)));
+    }
+
     @Test
     public void testProviderMethod() {
         Injector injector = Guice.createInjector(new HasProviderMethod());
@@ -83,4 +164,112 @@ public class SangriaLog4jModuleTest {
         assertThat(new SangriaLog4jModule(), is(atomic()));
         assertThat(new SangriaLog4jModule(), followsBestPractices());
     }
+
+    @Test
+    public void testLazyLogger() {
+        Guice.createInjector(new SangriaLog4jModule().withLazyLoggers()).injectMembers(this);
+
+        assertThat(logger, instanceOf(LazyLogger.class));
+        assertThat(logger.getName(), equalTo(SangriaLog4jModuleTest.class.getName()));
+        assertThat(((LazyLogger)logger).isResolved(), is(false));
+
+        logger.isDebugEnabled();
+        assertThat(((LazyLogger)logger).isResolved(), is(true));
+
+        assertThat(formatterLogger, instanceOf(LazyLogger.class));
+        assertThat(formatterLogger.getMessageFactory(), instanceOf(StringFormatterMessageFactory.class));
+    }
+
+    @Test
+    public void testCachingLogger() {
+        Guice.createInjector(new SangriaLog4jModule().withCachedLevelChecks()).injectMembers(this);
+
+        assertThat(logger, instanceOf(CachingLogger.class));
+        assertThat(logger.getName(), equalTo(SangriaLog4jModuleTest.class.getName()));
+
+        boolean debugEnabled = logger.isDebugEnabled();
+        assertThat(logger.isDebugEnabled(), equalTo(debugEnabled));
+        LevelCaches.invalidate();
+        assertThat(logger.isDebugEnabled(), equalTo(debugEnabled));
+
+        assertThat(formatterLogger.getMessageFactory(), instanceOf(StringFormatterMessageFactory.class));
+    }
+
+    /**
+     * A logger that records where each message was logged from, found the same way log4j-core does it: the caller is
+     * the frame just outside the outermost frame from the logger class.
+     */
+    private static class LocatingLogger extends AbstractLogger {
+        private static final long serialVersionUID = 1L;
+
+        final List<String> callers = new ArrayList<>();
+
+        LocatingLogger() {
+            super("locating");
+        }
+
+        @Override
+        public Level getLevel() {
+            return Level.ALL;
+        }
+
+        @Override
+        public boolean isEnabled(Level level, Marker marker, Message message, Throwable t) {
+            return true;
+        }
+
+        @Override
+        public boolean isEnabled(Level level, Marker marker, Object message, Throwable t) {
+            return true;
+        }
+
+        @Override
+        public boolean isEnabled(Level level, Marker marker, String message, Throwable t) {
+            return true;
+        }
+
+        @Override
+        public boolean isEnabled(Level level, Marker marker, String message) {
+            return true;
+        }
+
+        @Override
+        public boolean isEnabled(Level level, Marker marker, String message, Object... params) {
+            return true;
+        }
+
+        @Override
+        public void logMessage(String fqcn, Level level, Marker marker, Message message, Throwable t) {
+            StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+            StackTraceElement last = null;
+            for (int i = stackTrace.length - 1; i >= 0; --i) {
+                if (stackTrace[i].getClassName().equals(fqcn)) {
+                    break;
+                }
+                last = stackTrace[i];
+            }
+            callers.add(last == null ? null : last.getClassName() + "." + last.getMethodName());
+        }
+    }
+
+    @Test
+    public void testCallerLocation() {
+        LocatingLogger backend = new LocatingLogger();
+        Logger wrapped = new ThrottledLogger(new CachingLogger(backend), Throttle.sampling(1));
+
+        wrapped.info("message");
+        wrapped.warn("{} {}", 1, 2);
+        wrapped.error("error", new Exception());
+
+        String caller = SangriaLog4jModuleTest.class.getName() + ".testCallerLocation";
+        assertThat(backend.callers, contains(caller, caller, caller));
+    }
+
+    @Test
+    public void testLazyBestPractices() {
+        assertThat(new SangriaLog4jModule().withLazyLoggers(), is(atomic()));
+        assertThat(new SangriaLog4jModule().withLazyLoggers(), followsBestPractices());
+        assertThat(new SangriaLog4jModule().withLazyLoggers().withCachedLevelChecks(), is(atomic()));
+        assertThat(new SangriaLog4jModule().withLazyLoggers().withCachedLevelChecks(), followsBestPractices());
+    }
 }
@@ -0,0 +1,52 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.scopes;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import javax.inject.Scope;
+
+import static java.lang.annotation.ElementType.*;
+import static java.lang.annotation.RetentionPolicy.*;
+
+/**
+ * Scopes a binding to a fixed set of instances, one per stripe, with each thread using the instance for its stripe.
+ * Useful for mutable singletons like counters or buffers that are heavily contended, and whose stripes can be combined
+ * or used independently.
+ *
+ * <p>
+ * The number of stripes is taken from the annotation on the bound class. For {@link com.google.inject.Provides @Provides} methods, where
+ * the annotation isn't available to the scope, the default is used.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ * @see StripedScope
+ */
+@Scope
+@Documented
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+public @interface Striped {
+    /**
+     * @return The number of stripes, rounded up to a power of two. The default of zero means one stripe per available
+     *         processor.
+     */
+    int value() default 0;
+}
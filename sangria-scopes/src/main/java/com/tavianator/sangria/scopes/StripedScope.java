@@ -0,0 +1,146 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.scopes;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A scope that keeps a fixed number of instances of each binding, and hands each thread the instance for its stripe.
+ * Stripes are chosen by thread ID, so a given thread always sees the same instance, and threads with consecutive IDs
+ * (like the workers of a thread pool) see different ones as long as there are enough stripes. Injected {@link
+ * javax.inject.Provider}s pick a stripe on every call. Instances are created lazily, the first time their stripe is
+ * used.
+ *
+ * <p>
+ * {@link SangriaScopesModule} binds the {@linkplain #getDefault() default instance} of this scope to {@link Striped},
+ * which takes the stripe count from the annotation on the bound class:
+ * </p>
+ *
+ * <pre>
+ * {@literal @}Striped(64)
+ * public class Counter { ... }
+ * </pre>
+ *
+ * <p>
+ * Bindings can also use a fixed stripe count directly:
+ * </p>
+ *
+ * <pre>
+ * bind(Buffer.class)
+ *         .in(StripedScope.withStripes(16));
+ * </pre>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class StripedScope implements Scope {
+    private static final StripedScope DEFAULT = new StripedScope(0);
+
+    /** Stands in for null instances, since null marks a stripe that hasn't been created yet. */
+    private static final Object NULL = new Object();
+
+    private final int stripes;
+
+    private StripedScope(int stripes) {
+        this.stripes = stripes;
+    }
+
+    /**
+     * @return The scope bound to {@link Striped} by {@link SangriaScopesModule}, which takes the number of stripes from
+     *         the {@link Striped} annotation on the bound class.
+     */
+    public static StripedScope getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a {@link StripedScope} with a fixed number of stripes.
+     *
+     * @param stripes The number of stripes, which will be rounded up to a power of two.
+     * @return A {@link StripedScope} with at least {@code stripes} stripes.
+     */
+    public static StripedScope withStripes(int stripes) {
+        checkArgument(stripes > 0, "stripes must be positive");
+        return new StripedScope(stripes);
+    }
+
+    @Override
+    public <T> Provider<T> scope(Key<T> key, final Provider<T> creator) {
+        int count = stripes;
+        if (count == 0) {
+            Striped annotation = key.getTypeLiteral().getRawType().getAnnotation(Striped.class);
+            if (annotation != null) {
+                count = annotation.value();
+            }
+        }
+        final int size = stripeCount(count);
+        final int mask = size - 1;
+        final AtomicReferenceArray<Object> instances = new AtomicReferenceArray<>(size);
+
+        return new Provider<T>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public T get() {
+                int stripe = (int)Thread.currentThread().getId() & mask;
+
+                Object instance = instances.get(stripe);
+                if (instance == null) {
+                    synchronized (instances) {
+                        instance = instances.get(stripe);
+                        if (instance == null) {
+                            instance = creator.get();
+                            if (instance == null) {
+                                instance = NULL;
+                            }
+                            instances.set(stripe, instance);
+                        }
+                    }
+                }
+                return instance == NULL ? null : (T)instance;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("%s[%s, %d stripes]", creator, StripedScope.this, size);
+            }
+        };
+    }
+
+    /**
+     * Round a stripe count up to a power of two, defaulting to one stripe per processor.
+     */
+    static int stripeCount(int stripes) {
+        checkArgument(stripes >= 0, "stripes must be non-negative");
+        if (stripes == 0) {
+            stripes = Runtime.getRuntime().availableProcessors();
+        }
+        checkArgument(stripes <= 1 << 30, "too many stripes: %s", stripes);
+        return stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    }
+
+    @Override
+    public String toString() {
+        return stripes == 0 ? "StripedScope" : "StripedScope.withStripes(" + stripes + ")";
+    }
+}
@@ -0,0 +1,67 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.scopes;
+
+/**
+ * The tenant active on the current thread, entered with {@link TenantScope#enter(Object)}. Closing the context exits
+ * it, restoring the tenant that was active before, if any. Unlike a {@link UnitOfWork}, closing a tenant context
+ * doesn't release the tenant's instances; they stay cached until they're evicted.
+ *
+ * <p>
+ * A tenant context is confined to the thread that entered it.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class TenantContext implements AutoCloseable {
+    private final TenantScope scope;
+    private final Object tenantId;
+    private final TenantContext previous;
+    private boolean closed = false;
+
+    TenantContext(TenantScope scope, Object tenantId, TenantContext previous) {
+        this.scope = scope;
+        this.tenantId = tenantId;
+        this.previous = previous;
+    }
+
+    /**
+     * @return The ID of this context's tenant.
+     */
+    public Object getTenantId() {
+        return tenantId;
+    }
+
+    TenantContext getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Exit this tenant context, restoring the one that was active when it was entered, if any.
+     *
+     * @throws IllegalStateException If this is not the innermost tenant context on the current thread.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            scope.exit(this);
+            closed = true;
+        }
+    }
+}
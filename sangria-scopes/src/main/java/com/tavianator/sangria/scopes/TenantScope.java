@@ -0,0 +1,247 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.scopes;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A scope for multi-tenant applications, which keeps one instance of each scoped binding per tenant.
+ *
+ * <p>
+ * Instances are kept in a bounded, concurrent cache keyed by tenant and binding, so memory use stays bounded no matter
+ * how many tenants are served. When the cache is full, the least recently used instances are evicted; evicted instances
+ * that are {@link AutoCloseable} are closed, and new ones are created the next time they're needed. Scoped bindings
+ * should therefore keep any state that must survive eviction elsewhere.
+ * </p>
+ *
+ * <p>
+ * {@link SangriaScopesModule} binds the {@linkplain #getDefault() default instance} of this scope to {@link
+ * TenantScoped}, and makes it available for injection:
+ * </p>
+ *
+ * <pre>
+ * {@literal @}Inject TenantScope scope;
+ *
+ * ...
+ *
+ * try (TenantContext context = scope.enter(request.getTenantId())) {
+ *     handleRequest();
+ * }
+ * </pre>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class TenantScope implements Scope {
+    /** The maximum number of instances kept by the {@linkplain #getDefault() default instance}. */
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private static final TenantScope DEFAULT = new TenantScope(DEFAULT_MAXIMUM_SIZE);
+
+    /** Stands in for null instances, since caches can't hold null. */
+    private static final Object NULL = new Object();
+
+    private final long maximumSize;
+    private final Cache<TenantKey, Object> instances;
+    private final ThreadLocal<TenantContext> current = new ThreadLocal<>();
+
+    /**
+     * @return The scope bound to {@link TenantScoped} by {@link SangriaScopesModule}.
+     */
+    public static TenantScope getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a {@link TenantScope}, for use with a custom scope annotation.
+     *
+     * @param maximumSize The maximum number of instances to keep, across all tenants and bindings.
+     */
+    public TenantScope(long maximumSize) {
+        checkArgument(maximumSize > 0, "maximumSize must be positive");
+        this.maximumSize = maximumSize;
+        this.instances = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .removalListener(new RemovalListener<TenantKey, Object>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<TenantKey, Object> notification) {
+                        close(notification.getValue());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * A cache key for a scoped binding's instance for a particular tenant. Bindings are compared by identity, since the
+     * same {@link Key} may be scoped in more than one injector.
+     */
+    private static class TenantKey {
+        final Object tenantId;
+        final Provider<?> binding;
+
+        TenantKey(Object tenantId, Provider<?> binding) {
+            this.tenantId = tenantId;
+            this.binding = binding;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof TenantKey)) {
+                return false;
+            }
+
+            TenantKey other = (TenantKey)obj;
+            return tenantId.equals(other.tenantId)
+                    && binding == other.binding;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31*tenantId.hashCode() + System.identityHashCode(binding);
+        }
+    }
+
+    @Override
+    public <T> Provider<T> scope(final Key<T> key, final Provider<T> creator) {
+        return new Provider<T>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public T get() {
+                TenantContext context = current.get();
+                if (context == null) {
+                    throw new OutOfScopeException("Cannot access " + key + " outside of a tenant context");
+                }
+
+                Object instance;
+                try {
+                    instance = instances.get(new TenantKey(context.getTenantId(), this), new Callable<Object>() {
+                        @Override
+                        public Object call() {
+                            T created = creator.get();
+                            return created == null ? NULL : created;
+                        }
+                    });
+                } catch (ExecutionException | UncheckedExecutionException e) {
+                    throw Throwables.propagate(e.getCause());
+                }
+                return instance == NULL ? null : (T)instance;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("%s[%s]", creator, TenantScope.this);
+            }
+        };
+    }
+
+    /**
+     * Enter a tenant's context on the current thread. Tenant contexts may be nested; closing the inner one restores the
+     * outer one.
+     *
+     * @param tenantId The ID of the tenant, which must have consistent {@link Object#equals(Object)} and {@link
+     *                 Object#hashCode()} implementations.
+     * @return The new {@link TenantContext}, which should be closed when the tenant's work is done.
+     */
+    public TenantContext enter(Object tenantId) {
+        checkNotNull(tenantId, "tenantId");
+        TenantContext context = new TenantContext(this, tenantId, current.get());
+        current.set(context);
+        return context;
+    }
+
+    /**
+     * @return The ID of the tenant active on the current thread, or {@code null} if there isn't one.
+     */
+    public Object getCurrentTenantId() {
+        TenantContext context = current.get();
+        return context == null ? null : context.getTenantId();
+    }
+
+    /**
+     * Evict all of a tenant's instances, closing any that are {@link AutoCloseable}. Useful when a tenant is removed or
+     * reconfigured.
+     *
+     * @param tenantId The ID of the tenant to evict.
+     */
+    public void evict(Object tenantId) {
+        List<TenantKey> keys = new ArrayList<>();
+        for (TenantKey key : instances.asMap().keySet()) {
+            if (key.tenantId.equals(tenantId)) {
+                keys.add(key);
+            }
+        }
+        instances.invalidateAll(keys);
+    }
+
+    /**
+     * @return The maximum number of instances kept by this scope.
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return The current number of instances kept by this scope, across all tenants and bindings.
+     */
+    public long size() {
+        return instances.size();
+    }
+
+    void exit(TenantContext context) {
+        checkState(current.get() == context, "Tenant contexts must be exited in the reverse order they were entered");
+
+        TenantContext previous = context.getPrevious();
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    private static void close(Object instance) {
+        if (instance instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable)instance).close();
+            } catch (Exception e) {
+                // Nothing useful to do with it here
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TenantScope";
+    }
+}
@@ -0,0 +1,106 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.scopes;
+
+import java.util.*;
+import javax.inject.Provider;
+
+/**
+ * A single unit of work, such as a request or a job, entered with {@link UnitOfWorkScope#enter()}. Closing the unit
+ * of work exits it, and releases all the instances scoped to it.
+ *
+ * <p>
+ * A unit of work is confined to the thread that entered it.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class UnitOfWork implements AutoCloseable {
+    /** Stands in for null instances, since null marks an empty slot. */
+    private static final Object NULL = new Object();
+
+    private final UnitOfWorkScope scope;
+    private final UnitOfWork previous;
+    private Object[] instances;
+    private boolean closed = false;
+
+    UnitOfWork(UnitOfWorkScope scope, UnitOfWork previous, Object[] instances) {
+        this.scope = scope;
+        this.previous = previous;
+        this.instances = instances;
+    }
+
+    /**
+     * Get the instance in the given slot, creating it if necessary. Each slot holds the binding that owns it next to its
+     * instance, which keeps the binding reachable, so the slot can't be reused by another binding while this unit of
+     * work still holds an instance in it.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(int slot, Object binding, Provider<T> creator) {
+        int index = 2*slot;
+        if (index >= instances.length) {
+            // More bindings have been scoped since this array was allocated
+            instances = Arrays.copyOf(instances, arraySize(scope.getSlotCount()));
+        }
+
+        Object instance = instances[index + 1];
+        if (instance == null) {
+            T created = creator.get();
+            instances[index] = binding;
+            instances[index + 1] = created == null ? NULL : created;
+            return created;
+        } else if (instance == NULL) {
+            return null;
+        } else {
+            return (T)instance;
+        }
+    }
+
+    /**
+     * @return The array size needed for the given number of slots.
+     */
+    static int arraySize(int slotCount) {
+        return 2*slotCount;
+    }
+
+    UnitOfWork getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Exit this unit of work, restoring the one that was active when it was entered, if any.
+     *
+     * @throws IllegalStateException If this is not the innermost unit of work on the current thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        scope.exit(this);
+        closed = true;
+
+        Object[] array = instances;
+        instances = null;
+        Arrays.fill(array, null);
+        scope.recycle(array);
+    }
+}
@@ -0,0 +1,188 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.scopes;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A scope for units of work, such as requests or jobs.
+ *
+ * <p>
+ * Each scoped binding is assigned a dense slot index when the injector is created, and each {@link UnitOfWork}
+ * stores its instances in a plain array indexed by slot. A lookup is therefore a {@link ThreadLocal} read and an array
+ * access, with no hashing and no allocation. The arrays themselves are recycled between units of work.
+ * </p>
+ *
+ * <p>
+ * {@link SangriaScopesModule} binds the {@linkplain #getDefault() default instance} of this scope to {@link
+ * UnitOfWorkScoped}, and makes it available for injection:
+ * </p>
+ *
+ * <pre>
+ * {@literal @}Inject UnitOfWorkScope scope;
+ *
+ * ...
+ *
+ * try (UnitOfWork unit = scope.enter()) {
+ *     handleRequest();
+ * }
+ * </pre>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class UnitOfWorkScope implements Scope {
+    private static final UnitOfWorkScope DEFAULT = new UnitOfWorkScope();
+
+    private final AtomicInteger slotCount = new AtomicInteger();
+    /** Slots whose bindings have been garbage collected, ready for reuse. */
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+    private final ReferenceQueue<Object> collectedBindings = new ReferenceQueue<>();
+    /** Keeps the {@link SlotReference}s themselves reachable until they're enqueued. */
+    private final Set<SlotReference> slotReferences
+            = Collections.newSetFromMap(new ConcurrentHashMap<SlotReference, Boolean>());
+    private final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+    private final Queue<Object[]> arrays = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @return The scope bound to {@link UnitOfWorkScoped} by {@link SangriaScopesModule}.
+     */
+    public static UnitOfWorkScope getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a {@link UnitOfWorkScope}, for use with a custom scope annotation.
+     */
+    public UnitOfWorkScope() {
+    }
+
+    /**
+     * Tracks the slot of a scoped binding, so it can be reused once the binding is garbage collected.
+     */
+    private static class SlotReference extends WeakReference<Object> {
+        final int slot;
+
+        SlotReference(Object binding, int slot, ReferenceQueue<Object> queue) {
+            super(binding, queue);
+            this.slot = slot;
+        }
+    }
+
+    @Override
+    public <T> Provider<T> scope(final Key<T> key, final Provider<T> creator) {
+        // Slots belong to bindings rather than keys, since the same key may be scoped differently in another injector
+        final int slot = allocateSlot();
+
+        Provider<T> provider = new Provider<T>() {
+            @Override
+            public T get() {
+                UnitOfWork unit = current.get();
+                if (unit == null) {
+                    throw new OutOfScopeException("Cannot access " + key + " outside of a unit of work");
+                }
+                return unit.get(slot, this, creator);
+            }
+
+            @Override
+            public String toString() {
+                return String.format("%s[%s]", creator, UnitOfWorkScope.this);
+            }
+        };
+
+        slotReferences.add(new SlotReference(provider, slot, collectedBindings));
+        return provider;
+    }
+
+    /**
+     * Enter a new unit of work on the current thread. Units of work may be nested; closing the inner one restores the
+     * outer one.
+     *
+     * @return The new {@link UnitOfWork}, which should be closed when the work is done.
+     */
+    public UnitOfWork enter() {
+        Object[] array = arrays.poll();
+        int size = UnitOfWork.arraySize(slotCount.get());
+        if (array == null || array.length < size) {
+            array = new Object[size];
+        }
+
+        UnitOfWork unit = new UnitOfWork(this, current.get(), array);
+        current.set(unit);
+        return unit;
+    }
+
+    /**
+     * @return Whether a unit of work is active on the current thread.
+     */
+    public boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Allocate a slot for a new binding, reusing those of collected bindings so the slot count stays bounded by the
+     * number of live scoped bindings, even when injectors come and go.
+     */
+    private int allocateSlot() {
+        SlotReference reference;
+        while ((reference = (SlotReference)collectedBindings.poll()) != null) {
+            slotReferences.remove(reference);
+            freeSlots.offer(reference.slot);
+        }
+
+        Integer slot = freeSlots.poll();
+        return slot == null ? slotCount.getAndIncrement() : slot;
+    }
+
+    int getSlotCount() {
+        return slotCount.get();
+    }
+
+    void exit(UnitOfWork unit) {
+        checkState(current.get() == unit, "Units of work must be exited in the reverse order they were entered");
+
+        UnitOfWork previous = unit.getPrevious();
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    void recycle(Object[] array) {
+        arrays.offer(array);
+    }
+
+    @Override
+    public String toString() {
+        return "UnitOfWorkScope";
+    }
+}
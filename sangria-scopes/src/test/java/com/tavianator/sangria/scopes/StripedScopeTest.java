@@ -0,0 +1,146 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.scopes;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StripedScope}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class StripedScopeTest {
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    @Striped(4)
+    private static class Counter {
+        @Inject
+        Counter() {
+            INSTANCES.incrementAndGet();
+        }
+    }
+
+    @Striped(1)
+    private static class Single {
+    }
+
+    private static class Buffer {
+    }
+
+    private final Injector injector = Guice.createInjector(new AbstractModule() {
+        @Override
+        protected void configure() {
+            install(new SangriaScopesModule());
+            bind(Counter.class);
+            bind(Single.class);
+            bind(Buffer.class).in(StripedScope.withStripes(2));
+        }
+
+        @Provides
+        @Striped
+        @Named("null")
+        String provideNull() {
+            return null;
+        }
+    });
+
+    /**
+     * Get an instance from each of several fresh threads.
+     */
+    private static <T> Set<T> getFromThreads(final Provider<T> provider, int count) throws InterruptedException {
+        final Set<T> results = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<T, Boolean>()));
+        for (int i = 0; i < count; ++i) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    results.add(provider.get());
+                }
+            };
+            thread.start();
+            thread.join();
+        }
+        return results;
+    }
+
+    @Test
+    public void testSameThread() {
+        Counter counter = injector.getInstance(Counter.class);
+        assertThat(injector.getInstance(Counter.class), sameInstance(counter));
+    }
+
+    @Test
+    public void testStripes() throws InterruptedException {
+        int before = INSTANCES.get();
+        Set<Counter> counters = getFromThreads(injector.getProvider(Counter.class), 16);
+        assertThat(counters.size(), allOf(greaterThan(1), lessThanOrEqualTo(4)));
+        assertThat(INSTANCES.get() - before, equalTo(counters.size()));
+    }
+
+    @Test
+    public void testSingleStripe() throws InterruptedException {
+        assertThat(getFromThreads(injector.getProvider(Single.class), 8).size(), equalTo(1));
+    }
+
+    @Test
+    public void testWithStripes() throws InterruptedException {
+        Set<Buffer> buffers = getFromThreads(injector.getProvider(Buffer.class), 8);
+        assertThat(buffers.size(), allOf(greaterThan(0), lessThanOrEqualTo(2)));
+    }
+
+    @Test
+    public void testNull() {
+        assertThat(injector.getInstance(Key.get(String.class, Names.named("null"))), nullValue());
+    }
+
+    @Test
+    public void testStripeCount() {
+        assertThat(StripedScope.stripeCount(1), equalTo(1));
+        assertThat(StripedScope.stripeCount(2), equalTo(2));
+        assertThat(StripedScope.stripeCount(3), equalTo(4));
+        assertThat(StripedScope.stripeCount(64), equalTo(64));
+        assertThat(StripedScope.stripeCount(65), equalTo(128));
+        assertThat(StripedScope.stripeCount(0), greaterThanOrEqualTo(Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveStripes() {
+        StripedScope.withStripes(0);
+    }
+
+    @Test
+    public void testToString() {
+        assertThat(StripedScope.getDefault().toString(), equalTo("StripedScope"));
+        assertThat(StripedScope.withStripes(8).toString(), equalTo("StripedScope.withStripes(8)"));
+    }
+}
@@ -0,0 +1,223 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+package com.tavianator.sangria.scopes;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.ProvisionException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.tavianator.sangria.test.SangriaMatchers.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TenantScope}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class TenantScopeTest {
+    @TenantScoped
+    private static class Scoped {
+        @Inject
+        Scoped() {
+        }
+    }
+
+    private static class Resource implements AutoCloseable {
+        boolean closed = false;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final Module MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            install(new SangriaScopesModule());
+            bind(Scoped.class);
+        }
+    };
+
+    private TenantScope scope;
+    private Provider<Scoped> provider;
+
+    @Before
+    public void setUp() {
+        Injector injector = Guice.createInjector(MODULE);
+        scope = injector.getInstance(TenantScope.class);
+        provider = injector.getProvider(Scoped.class);
+    }
+
+    @Test
+    public void testSameTenant() {
+        Scoped scoped;
+        TenantContext first = scope.enter("a");
+        try {
+            scoped = provider.get();
+            assertThat(provider.get(), sameInstance(scoped));
+        } finally {
+            first.close();
+        }
+
+        TenantContext second = scope.enter("a");
+        try {
+            assertThat(provider.get(), sameInstance(scoped));
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    public void testDifferentTenants() {
+        TenantContext a = scope.enter("a");
+        try {
+            Scoped scoped = provider.get();
+            TenantContext b = scope.enter("b");
+            try {
+                assertThat(scope.getCurrentTenantId(), equalTo((Object)"b"));
+                assertThat(provider.get(), not(sameInstance(scoped)));
+            } finally {
+                b.close();
+            }
+            assertThat(scope.getCurrentTenantId(), equalTo((Object)"a"));
+            assertThat(provider.get(), sameInstance(scoped));
+        } finally {
+            a.close();
+        }
+        assertThat(scope.getCurrentTenantId(), nullValue());
+    }
+
+    @Test
+    public void testSeparateInjectors() {
+        Provider<Scoped> otherProvider = Guice.createInjector(MODULE).getProvider(Scoped.class);
+        TenantContext context = scope.enter("a");
+        try {
+            assertThat(otherProvider.get(), not(sameInstance(provider.get())));
+        } finally {
+            context.close();
+        }
+    }
+
+    @Test(expected = ProvisionException.class)
+    public void testOutOfScope() {
+        try {
+            provider.get();
+        } catch (ProvisionException e) {
+            assertThat(e.getCause(), instanceOf(OutOfScopeException.class));
+            throw e;
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMisnestedExit() {
+        TenantContext a = scope.enter("a");
+        TenantContext b = scope.enter("b");
+        try {
+            a.close();
+        } finally {
+            b.close();
+            a.close();
+        }
+    }
+
+    @Test
+    public void testEviction() {
+        final TenantScope small = new TenantScope(2);
+        Provider<Resource> resources = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Resource.class).in(small);
+            }
+        }).getProvider(Resource.class);
+
+        Resource first;
+        TenantContext initial = small.enter(1);
+        try {
+            first = resources.get();
+        } finally {
+            initial.close();
+        }
+        for (int i = 2; i <= 4; ++i) {
+            TenantContext context = small.enter(i);
+            try {
+                resources.get();
+            } finally {
+                context.close();
+            }
+        }
+
+        assertThat(small.size(), lessThanOrEqualTo(2L));
+        assertTrue(first.closed);
+
+        TenantContext again = small.enter(1);
+        try {
+            Resource rebuilt = resources.get();
+            assertThat(rebuilt, not(sameInstance(first)));
+            assertFalse(rebuilt.closed);
+        } finally {
+            again.close();
+        }
+    }
+
+    @Test
+    public void testEvictTenant() {
+        final TenantScope scope = new TenantScope(100);
+        Provider<Resource> resources = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Resource.class).in(scope);
+            }
+        }).getProvider(Resource.class);
+
+        Resource a, b;
+        TenantContext inA = scope.enter("a");
+        try {
+            a = resources.get();
+        } finally {
+            inA.close();
+        }
+        TenantContext inB = scope.enter("b");
+        try {
+            b = resources.get();
+        } finally {
+            inB.close();
+        }
+
+        scope.evict("a");
+        assertTrue(a.closed);
+        assertFalse(b.closed);
+        assertThat(scope.size(), equalTo(1L));
+    }
+
+    @Test
+    public void testBestPractices() {
+        assertThat(MODULE, is(atomic()));
+        assertThat(MODULE, followsBestPractices());
+    }
+}
@@ -0,0 +1,211 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.scopes;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.ProvisionException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.tavianator.sangria.test.SangriaMatchers.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link UnitOfWorkScope}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class UnitOfWorkScopeTest {
+    @UnitOfWorkScoped
+    private static class Scoped {
+        @Inject
+        Scoped() {
+        }
+    }
+
+    @UnitOfWorkScoped
+    private static class Other {
+        final Scoped scoped;
+
+        @Inject
+        Other(Scoped scoped) {
+            this.scoped = scoped;
+        }
+    }
+
+    private static final Module MODULE = new AbstractModule() {
+        @Override
+        protected void configure() {
+            install(new SangriaScopesModule());
+            bind(Scoped.class);
+            bind(Other.class);
+        }
+    };
+
+    private UnitOfWorkScope scope;
+    private Provider<Scoped> provider;
+    private Provider<Other> otherProvider;
+
+    @Before
+    public void setUp() {
+        Injector injector = Guice.createInjector(MODULE);
+        scope = injector.getInstance(UnitOfWorkScope.class);
+        provider = injector.getProvider(Scoped.class);
+        otherProvider = injector.getProvider(Other.class);
+    }
+
+    @Test
+    public void testSameUnit() {
+        UnitOfWork unit = scope.enter();
+        try {
+            Scoped scoped = provider.get();
+            assertThat(provider.get(), sameInstance(scoped));
+            assertThat(otherProvider.get().scoped, sameInstance(scoped));
+            assertThat(otherProvider.get(), sameInstance(otherProvider.get()));
+        } finally {
+            unit.close();
+        }
+    }
+
+    @Test
+    public void testDifferentUnits() {
+        Scoped scoped;
+        UnitOfWork first = scope.enter();
+        try {
+            scoped = provider.get();
+        } finally {
+            first.close();
+        }
+
+        UnitOfWork second = scope.enter();
+        try {
+            assertThat(provider.get(), not(sameInstance(scoped)));
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    public void testNestedUnits() {
+        UnitOfWork outer = scope.enter();
+        try {
+            Scoped scoped = provider.get();
+
+            UnitOfWork inner = scope.enter();
+            try {
+                assertThat(provider.get(), not(sameInstance(scoped)));
+            } finally {
+                inner.close();
+            }
+
+            assertThat(provider.get(), sameInstance(scoped));
+        } finally {
+            outer.close();
+        }
+
+        assertThat(scope.isActive(), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOutOfOrderExit() {
+        UnitOfWork outer = scope.enter();
+        UnitOfWork inner = scope.enter();
+        try {
+            outer.close();
+        } finally {
+            inner.close();
+            outer.close();
+        }
+    }
+
+    @Test
+    public void testOutOfScope() {
+        try {
+            provider.get();
+            fail();
+        } catch (ProvisionException e) {
+            assertThat(e.getCause(), instanceOf(OutOfScopeException.class));
+        }
+    }
+
+    private interface Base {
+    }
+
+    private static class ImplA implements Base {
+    }
+
+    private static class ImplB implements Base {
+    }
+
+    private static Injector createChild(Injector parent, final Class<? extends Base> impl) {
+        return parent.createChildInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Base.class).to(impl).in(UnitOfWorkScoped.class);
+            }
+        });
+    }
+
+    @Test
+    public void testSameKeyDifferentBindings() {
+        Injector parent = Guice.createInjector(new SangriaScopesModule());
+        Provider<Base> a = createChild(parent, ImplA.class).getProvider(Base.class);
+        Provider<Base> b = createChild(parent, ImplB.class).getProvider(Base.class);
+
+        UnitOfWork unit = parent.getInstance(UnitOfWorkScope.class).enter();
+        try {
+            assertThat(a.get(), instanceOf(ImplA.class));
+            assertThat(b.get(), instanceOf(ImplB.class));
+            assertThat(a.get(), sameInstance(a.get()));
+        } finally {
+            unit.close();
+        }
+    }
+
+    @Test
+    public void testSameKeySeparateInjectors() {
+        Provider<Base> a = createChild(Guice.createInjector(MODULE), ImplA.class).getProvider(Base.class);
+        Provider<Base> b = createChild(Guice.createInjector(MODULE), ImplB.class).getProvider(Base.class);
+
+        UnitOfWork unit = scope.enter();
+        try {
+            assertThat(a.get(), instanceOf(ImplA.class));
+            assertThat(b.get(), instanceOf(ImplB.class));
+        } finally {
+            unit.close();
+        }
+    }
+
+    @Test
+    public void testBestPractices() {
+        assertThat(MODULE, is(atomic()));
+        assertThat(MODULE, followsBestPractices());
+        assertThat(new SangriaScopesModule(), is(atomic()));
+        assertThat(new SangriaScopesModule(), followsBestPractices());
+    }
+}
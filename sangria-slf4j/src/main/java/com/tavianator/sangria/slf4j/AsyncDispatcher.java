@@ -0,0 +1,390 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer queue of log messages, and the background thread that drains
+ * it.
+ *
+ * <p>
+ * The buffer is a ring of preallocated slots, each with a sequence number that says whether it is free for the
+ * producer at a given position, or ready for the consumer at that position. Producers claim positions with a
+ * compare-and-set on the head counter, so enqueueing a message never takes a lock or allocates. Optionally, a copy of
+ * the caller's {@link MDC} is captured with each message, and restored on the background thread while the message is
+ * logged.
+ * </p>
+ *
+ * <p>
+ * The background thread is started by the first message, and stops again once it has been idle for a while, so an
+ * unused dispatcher holds no thread and can be garbage collected along with its loggers. A single shutdown hook,
+ * shared by every dispatcher, flushes the running dispatchers before the JVM exits.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+final class AsyncDispatcher {
+    /** How long the consumer sleeps between checks when there's nothing to do. */
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+    /** How long a blocked producer waits between retries. */
+    private static final long FULL_PARK_NANOS = 100_000L;
+    /** How long {@link #flush()} waits for the consumer to catch up before giving up. */
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    /** How long the consumer waits for new messages before it stops. */
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** The dispatchers whose consumer threads are running. */
+    private static final Set<AsyncDispatcher> RUNNING
+            = Collections.newSetFromMap(new ConcurrentHashMap<AsyncDispatcher, Boolean>());
+    private static final AtomicBoolean SHUTDOWN_HOOK_ADDED = new AtomicBoolean();
+
+    private static final class Slot {
+        Logger logger;
+        LogLevel level;
+        Marker marker;
+        String format;
+        Object[] args;
+        Throwable throwable;
+        Map<String, String> mdc;
+    }
+
+    private final OverflowPolicy policy;
+    private final boolean captureMdc;
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    /** The next position to be claimed by a producer. */
+    private final AtomicLong head = new AtomicLong();
+    /** The next position to be consumed. Only written by the consumer thread, after logging the previous message. */
+    private volatile long tail = 0;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /** The running consumer thread, if any. Only written while holding this object's lock. */
+    private volatile Thread consumer = null;
+    private volatile boolean consumerParked = false;
+
+    /**
+     * @param capacity The number of messages to buffer, which must be a power of two.
+     * @param policy What to do when the buffer is full.
+     * @param captureMdc Whether to log each message with a copy of the caller's {@link MDC}.
+     */
+    AsyncDispatcher(int capacity, OverflowPolicy policy, boolean captureMdc) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "Capacity %s is not a power of two", capacity);
+
+        this.policy = checkNotNull(policy);
+        this.captureMdc = captureMdc;
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Enqueue a message to be logged on the background thread.
+     *
+     * @return Whether the message was accepted.
+     */
+    boolean dispatch(Logger logger, LogLevel level, Marker marker, String format, Object[] args, Throwable t) {
+        if (Thread.currentThread() == consumer) {
+            // Something logged from inside the backend; waiting on ourselves would deadlock
+            level.log(logger, marker, format, args, t);
+            return true;
+        }
+
+        Map<String, String> mdc = captureMdc ? MDC.getCopyOfContextMap() : null;
+
+        long position;
+        while (true) {
+            position = head.get();
+            long sequence = sequences.get(index(position));
+            if (sequence == position) {
+                if (head.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                // The buffer is full
+                if (policy == OverflowPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                nudgeConsumer();
+                LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            }
+        }
+
+        int index = index(position);
+        Slot slot = slots[index];
+        slot.logger = logger;
+        slot.level = level;
+        slot.marker = marker;
+        slot.format = format;
+        slot.args = args;
+        slot.throwable = t;
+        slot.mdc = mdc;
+        sequences.set(index, position + 1);
+
+        wakeConsumer();
+        return true;
+    }
+
+    /**
+     * Make sure the consumer will see a newly published message, starting it if necessary.
+     */
+    private void wakeConsumer() {
+        Thread thread = consumer;
+        if (thread == null) {
+            start();
+        } else if (consumerParked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Wake the consumer unconditionally, starting it if necessary.
+     */
+    private void nudgeConsumer() {
+        Thread thread = consumer;
+        if (thread == null) {
+            start();
+        } else {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private synchronized void start() {
+        if (consumer == null) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    consume();
+                }
+            }, "sangria-slf4j-async");
+            thread.setDaemon(true);
+
+            consumer = thread;
+            RUNNING.add(this);
+            addShutdownHook();
+            thread.start();
+        }
+    }
+
+    /**
+     * Called by the consumer thread when it wants to stop.
+     *
+     * @return Whether the consumer may stop, which it may not if a message arrived in the meantime.
+     */
+    private boolean tryStop() {
+        synchronized (this) {
+            consumer = null;
+            RUNNING.remove(this);
+        }
+
+        // A producer that saw the consumer still running before we cleared it will have published its message first
+        if (sequences.get(index(tail)) != tail + 1) {
+            return true;
+        }
+
+        synchronized (this) {
+            if (consumer == null) {
+                consumer = Thread.currentThread();
+                RUNNING.add(this);
+                return false;
+            } else {
+                // Another consumer has already been started
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return The number of messages discarded because the buffer was full.
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of messages that the backend failed to log.
+     */
+    long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Wait, for a bounded time, until every message enqueued before this call has been logged.
+     *
+     * @return Whether the messages were all logged.
+     */
+    boolean flush() {
+        return flush(FLUSH_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Wait until every message enqueued before this call has been logged, or the timeout elapses.
+     *
+     * @param timeout How long to wait.
+     * @param unit The unit of {@code timeout}.
+     * @return Whether the messages were all logged.
+     */
+    boolean flush(long timeout, TimeUnit unit) {
+        if (Thread.currentThread() == consumer) {
+            return tail >= head.get();
+        }
+
+        long target = head.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (tail < target) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+
+            nudgeConsumer();
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether the consumer thread is currently running.
+     */
+    boolean isRunning() {
+        return consumer != null;
+    }
+
+    private int index(long position) {
+        return (int)position & mask;
+    }
+
+    private static void addShutdownHook() {
+        if (SHUTDOWN_HOOK_ADDED.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    flushAll();
+                }
+            }, "sangria-slf4j-async-flush"));
+        }
+    }
+
+    /**
+     * Flush every running dispatcher, sharing a single timeout between them.
+     */
+    private static void flushAll() {
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        for (AsyncDispatcher dispatcher : RUNNING) {
+            dispatcher.flush(Math.max(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void consume() {
+        // Some MDC adapters are inheritable; don't leak the starting thread's context into every message
+        MDC.clear();
+
+        try {
+            drain();
+        } finally {
+            // Don't leave a dead thread registered if something went badly wrong
+            synchronized (this) {
+                if (consumer == Thread.currentThread()) {
+                    consumer = null;
+                    RUNNING.remove(this);
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        long idleSince = System.nanoTime();
+        while (true) {
+            long position = tail;
+            int index = index(position);
+            if (sequences.get(index) == position + 1) {
+                Slot slot = slots[index];
+                Logger logger = slot.logger;
+                LogLevel level = slot.level;
+                Marker marker = slot.marker;
+                String format = slot.format;
+                Object[] args = slot.args;
+                Throwable t = slot.throwable;
+                Map<String, String> mdc = slot.mdc;
+
+                slot.logger = null;
+                slot.marker = null;
+                slot.format = null;
+                slot.args = null;
+                slot.throwable = null;
+                slot.mdc = null;
+                sequences.set(index, position + slots.length);
+
+                try {
+                    if (captureMdc) {
+                        // Replace whatever the previous message left behind
+                        if (mdc == null) {
+                            MDC.clear();
+                        } else {
+                            MDC.setContextMap(mdc);
+                        }
+                    }
+                    level.log(logger, marker, format, args, t);
+                } catch (Throwable e) {
+                    // Don't let a misbehaving backend kill the consumer thread
+                    failed.incrementAndGet();
+                }
+
+                tail = position + 1;
+                idleSince = System.nanoTime();
+            } else if (System.nanoTime() - idleSince >= IDLE_TIMEOUT_NANOS) {
+                if (tryStop()) {
+                    return;
+                }
+                idleSince = System.nanoTime();
+            } else {
+                consumerParked = true;
+                if (sequences.get(index) != position + 1) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                consumerParked = false;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "AsyncDispatcher[capacity=%d, policy=%s, captureMdc=%s]", slots.length, policy, captureMdc);
+    }
+}
@@ -0,0 +1,54 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+
+/**
+ * A {@link Logger} that checks whether levels are enabled on the calling thread, but hands enabled messages to an
+ * {@link AsyncDispatcher} to be logged on a background thread.
+ *
+ * <p>
+ * Format arguments are captured by reference and formatted later, so they should not be mutated after they are
+ * logged. The caller's location isn't captured, so backends that report it will not show anything useful.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class AsyncLogger extends ForwardingLogger {
+    private final Logger delegate;
+    private final AsyncDispatcher dispatcher;
+
+    AsyncLogger(Logger delegate, AsyncDispatcher dispatcher) {
+        this.delegate = delegate;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    Logger delegate() {
+        return delegate;
+    }
+
+    @Override
+    void log(LogLevel level, Marker marker, String format, Object[] args, Throwable t) {
+        dispatcher.dispatch(delegate, level, marker, format, args, t);
+    }
+}
@@ -0,0 +1,120 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import java.util.*;
+
+import com.google.inject.spi.InjectionPoint;
+import org.slf4j.Logger;
+
+import com.tavianator.sangria.contextual.ClassSensitiveProvider;
+import com.tavianator.sangria.contextual.ContextSensitiveProvider;
+
+/**
+ * {@link Logger} provider implementation for asynchronous logging.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class AsyncLoggerProvider implements ContextSensitiveProvider<Logger> {
+    private final ContextSensitiveProvider<Logger> loggers;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final boolean captureMdc;
+    private final AsyncDispatcher dispatcher;
+
+    private AsyncLoggerProvider(
+            ContextSensitiveProvider<Logger> loggers,
+            int capacity,
+            OverflowPolicy policy,
+            boolean captureMdc) {
+        this.loggers = loggers;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.captureMdc = captureMdc;
+        this.dispatcher = new AsyncDispatcher(capacity, policy, captureMdc);
+    }
+
+    /**
+     * Wrap a logger provider, preserving its {@link ClassSensitiveProvider}-ness.
+     */
+    static AsyncLoggerProvider create(
+            ContextSensitiveProvider<Logger> loggers,
+            int capacity,
+            OverflowPolicy policy,
+            boolean captureMdc) {
+        if (loggers instanceof ClassSensitiveProvider) {
+            return new ClassSensitive((ClassSensitiveProvider<Logger>)loggers, capacity, policy, captureMdc);
+        } else {
+            return new AsyncLoggerProvider(loggers, capacity, policy, captureMdc);
+        }
+    }
+
+    /**
+     * Variant for {@link ClassSensitiveProvider} delegates.
+     */
+    private static class ClassSensitive extends AsyncLoggerProvider implements ClassSensitiveProvider<Logger> {
+        private final ClassSensitiveProvider<Logger> loggers;
+
+        ClassSensitive(
+                ClassSensitiveProvider<Logger> loggers,
+                int capacity,
+                OverflowPolicy policy,
+                boolean captureMdc) {
+            super(loggers, capacity, policy, captureMdc);
+            this.loggers = loggers;
+        }
+
+        @Override
+        public Logger getForClass(Class<?> type) {
+            return new AsyncLogger(loggers.getForClass(type), super.dispatcher);
+        }
+    }
+
+    @Override
+    public Logger getInContext(InjectionPoint injectionPoint) {
+        return new AsyncLogger(loggers.getInContext(injectionPoint), dispatcher);
+    }
+
+    @Override
+    public Logger getInUnknownContext() {
+        return new AsyncLogger(loggers.getInUnknownContext(), dispatcher);
+    }
+
+    // Allow binding de-duplication
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof AsyncLoggerProvider)) {
+            return false;
+        }
+
+        AsyncLoggerProvider other = (AsyncLoggerProvider)obj;
+        return loggers.equals(other.loggers)
+                && capacity == other.capacity
+                && policy == other.policy
+                && captureMdc == other.captureMdc;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(loggers, capacity, policy, captureMdc);
+    }
+}
@@ -0,0 +1,81 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+
+/**
+ * A {@link Logger} that caches whether each level is enabled, until {@link LevelCaches#invalidate()} is called. Level
+ * checks with a {@link Marker} aren't cached.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class CachingLogger extends ForwardingLogger {
+    private final Logger delegate;
+    /**
+     * The cached level checks: the {@link LevelCaches#version()} in the high 32 bits, then a byte of levels that have
+     * been checked, and a byte of levels that are enabled.
+     */
+    private volatile long state = 0;
+
+    CachingLogger(Logger delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    Logger delegate() {
+        return delegate;
+    }
+
+    @Override
+    boolean isEnabled(LogLevel level, Marker marker) {
+        if (marker != null) {
+            return level.isEnabled(delegate, marker);
+        }
+
+        int version = LevelCaches.version();
+        long enabledBit = 1L << level.ordinal();
+        long checkedBit = enabledBit << 8;
+
+        long current = state;
+        if ((int)(current >>> 32) == version) {
+            if ((current & checkedBit) != 0) {
+                return (current & enabledBit) != 0;
+            }
+        } else {
+            current = (long)version << 32;
+        }
+
+        boolean enabled = level.isEnabled(delegate, null);
+        current |= checkedBit;
+        if (enabled) {
+            current |= enabledBit;
+        }
+        // Racing updates may lose each other's bits, but that just means checking again later
+        state = current;
+        return enabled;
+    }
+
+    @Override
+    void log(LogLevel level, Marker marker, String format, Object[] args, Throwable t) {
+        level.log(delegate, marker, format, args, t);
+    }
+}
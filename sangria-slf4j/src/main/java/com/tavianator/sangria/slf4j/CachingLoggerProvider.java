@@ -0,0 +1,95 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import com.google.inject.spi.InjectionPoint;
+import org.slf4j.Logger;
+
+import com.tavianator.sangria.contextual.ClassSensitiveProvider;
+import com.tavianator.sangria.contextual.ContextSensitiveProvider;
+
+/**
+ * {@link Logger} provider implementation for loggers with cached level checks.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class CachingLoggerProvider implements ContextSensitiveProvider<Logger> {
+    private final ContextSensitiveProvider<Logger> loggers;
+
+    private CachingLoggerProvider(ContextSensitiveProvider<Logger> loggers) {
+        this.loggers = loggers;
+    }
+
+    /**
+     * Wrap a logger provider, preserving its {@link ClassSensitiveProvider}-ness.
+     */
+    static CachingLoggerProvider create(ContextSensitiveProvider<Logger> loggers) {
+        if (loggers instanceof ClassSensitiveProvider) {
+            return new ClassSensitive((ClassSensitiveProvider<Logger>)loggers);
+        } else {
+            return new CachingLoggerProvider(loggers);
+        }
+    }
+
+    /**
+     * Variant for {@link ClassSensitiveProvider} delegates.
+     */
+    private static class ClassSensitive extends CachingLoggerProvider implements ClassSensitiveProvider<Logger> {
+        private final ClassSensitiveProvider<Logger> loggers;
+
+        ClassSensitive(ClassSensitiveProvider<Logger> loggers) {
+            super(loggers);
+            this.loggers = loggers;
+        }
+
+        @Override
+        public Logger getForClass(Class<?> type) {
+            return new CachingLogger(loggers.getForClass(type));
+        }
+    }
+
+    @Override
+    public Logger getInContext(InjectionPoint injectionPoint) {
+        return new CachingLogger(loggers.getInContext(injectionPoint));
+    }
+
+    @Override
+    public Logger getInUnknownContext() {
+        return new CachingLogger(loggers.getInUnknownContext());
+    }
+
+    // Allow binding de-duplication
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof CachingLoggerProvider)) {
+            return false;
+        }
+
+        CachingLoggerProvider other = (CachingLoggerProvider)obj;
+        return loggers.equals(other.loggers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31*loggers.hashCode();
+    }
+}
@@ -0,0 +1,464 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+
+/**
+ * A {@link Logger} that funnels every call through {@link #isEnabled(LogLevel, Marker)} and {@link #log(LogLevel,
+ * Marker, String, Object[], Throwable)}, so decorators only have to override those. Messages are only passed on if
+ * their level is enabled, and the enabled check happens before any argument arrays are allocated.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+abstract class ForwardingLogger implements Logger {
+    static final Object[] NO_ARGS = {};
+
+    /**
+     * @return The logger to forward to.
+     */
+    abstract Logger delegate();
+
+    /**
+     * @return Whether the given level is enabled.
+     */
+    boolean isEnabled(LogLevel level, Marker marker) {
+        return level.isEnabled(delegate(), marker);
+    }
+
+    /**
+     * Log a message whose level is known to be enabled. This is deliberately not implemented here, so that backends
+     * which report the caller's location see exactly one {@link ForwardingLogger} frame: the public method that was
+     * called. Implementations should generally end with {@link LogLevel#log(Logger, Marker, String, Object[],
+     * Throwable)}.
+     */
+    abstract void log(LogLevel level, Marker marker, String format, Object[] args, Throwable t);
+
+    @Override
+    public String getName() {
+        return delegate().getName();
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return isEnabled(LogLevel.TRACE, null);
+    }
+
+    @Override
+    public void trace(String msg) {
+        if (isEnabled(LogLevel.TRACE, null)) {
+            log(LogLevel.TRACE, null, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void trace(String format, Object arg) {
+        if (isEnabled(LogLevel.TRACE, null)) {
+            log(LogLevel.TRACE, null, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void trace(String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.TRACE, null)) {
+            log(LogLevel.TRACE, null, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void trace(String format, Object... arguments) {
+        if (isEnabled(LogLevel.TRACE, null)) {
+            log(LogLevel.TRACE, null, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void trace(String msg, Throwable t) {
+        if (isEnabled(LogLevel.TRACE, null)) {
+            log(LogLevel.TRACE, null, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isTraceEnabled(Marker marker) {
+        return isEnabled(LogLevel.TRACE, marker);
+    }
+
+    @Override
+    public void trace(Marker marker, String msg) {
+        if (isEnabled(LogLevel.TRACE, marker)) {
+            log(LogLevel.TRACE, marker, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void trace(Marker marker, String format, Object arg) {
+        if (isEnabled(LogLevel.TRACE, marker)) {
+            log(LogLevel.TRACE, marker, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void trace(Marker marker, String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.TRACE, marker)) {
+            log(LogLevel.TRACE, marker, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void trace(Marker marker, String format, Object... arguments) {
+        if (isEnabled(LogLevel.TRACE, marker)) {
+            log(LogLevel.TRACE, marker, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void trace(Marker marker, String msg, Throwable t) {
+        if (isEnabled(LogLevel.TRACE, marker)) {
+            log(LogLevel.TRACE, marker, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG, null);
+    }
+
+    @Override
+    public void debug(String msg) {
+        if (isEnabled(LogLevel.DEBUG, null)) {
+            log(LogLevel.DEBUG, null, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void debug(String format, Object arg) {
+        if (isEnabled(LogLevel.DEBUG, null)) {
+            log(LogLevel.DEBUG, null, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.DEBUG, null)) {
+            log(LogLevel.DEBUG, null, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void debug(String format, Object... arguments) {
+        if (isEnabled(LogLevel.DEBUG, null)) {
+            log(LogLevel.DEBUG, null, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void debug(String msg, Throwable t) {
+        if (isEnabled(LogLevel.DEBUG, null)) {
+            log(LogLevel.DEBUG, null, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled(Marker marker) {
+        return isEnabled(LogLevel.DEBUG, marker);
+    }
+
+    @Override
+    public void debug(Marker marker, String msg) {
+        if (isEnabled(LogLevel.DEBUG, marker)) {
+            log(LogLevel.DEBUG, marker, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void debug(Marker marker, String format, Object arg) {
+        if (isEnabled(LogLevel.DEBUG, marker)) {
+            log(LogLevel.DEBUG, marker, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void debug(Marker marker, String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.DEBUG, marker)) {
+            log(LogLevel.DEBUG, marker, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void debug(Marker marker, String format, Object... arguments) {
+        if (isEnabled(LogLevel.DEBUG, marker)) {
+            log(LogLevel.DEBUG, marker, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void debug(Marker marker, String msg, Throwable t) {
+        if (isEnabled(LogLevel.DEBUG, marker)) {
+            log(LogLevel.DEBUG, marker, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return isEnabled(LogLevel.INFO, null);
+    }
+
+    @Override
+    public void info(String msg) {
+        if (isEnabled(LogLevel.INFO, null)) {
+            log(LogLevel.INFO, null, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void info(String format, Object arg) {
+        if (isEnabled(LogLevel.INFO, null)) {
+            log(LogLevel.INFO, null, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void info(String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.INFO, null)) {
+            log(LogLevel.INFO, null, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void info(String format, Object... arguments) {
+        if (isEnabled(LogLevel.INFO, null)) {
+            log(LogLevel.INFO, null, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void info(String msg, Throwable t) {
+        if (isEnabled(LogLevel.INFO, null)) {
+            log(LogLevel.INFO, null, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled(Marker marker) {
+        return isEnabled(LogLevel.INFO, marker);
+    }
+
+    @Override
+    public void info(Marker marker, String msg) {
+        if (isEnabled(LogLevel.INFO, marker)) {
+            log(LogLevel.INFO, marker, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void info(Marker marker, String format, Object arg) {
+        if (isEnabled(LogLevel.INFO, marker)) {
+            log(LogLevel.INFO, marker, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void info(Marker marker, String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.INFO, marker)) {
+            log(LogLevel.INFO, marker, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void info(Marker marker, String format, Object... arguments) {
+        if (isEnabled(LogLevel.INFO, marker)) {
+            log(LogLevel.INFO, marker, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void info(Marker marker, String msg, Throwable t) {
+        if (isEnabled(LogLevel.INFO, marker)) {
+            log(LogLevel.INFO, marker, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return isEnabled(LogLevel.WARN, null);
+    }
+
+    @Override
+    public void warn(String msg) {
+        if (isEnabled(LogLevel.WARN, null)) {
+            log(LogLevel.WARN, null, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void warn(String format, Object arg) {
+        if (isEnabled(LogLevel.WARN, null)) {
+            log(LogLevel.WARN, null, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void warn(String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.WARN, null)) {
+            log(LogLevel.WARN, null, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void warn(String format, Object... arguments) {
+        if (isEnabled(LogLevel.WARN, null)) {
+            log(LogLevel.WARN, null, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void warn(String msg, Throwable t) {
+        if (isEnabled(LogLevel.WARN, null)) {
+            log(LogLevel.WARN, null, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isWarnEnabled(Marker marker) {
+        return isEnabled(LogLevel.WARN, marker);
+    }
+
+    @Override
+    public void warn(Marker marker, String msg) {
+        if (isEnabled(LogLevel.WARN, marker)) {
+            log(LogLevel.WARN, marker, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void warn(Marker marker, String format, Object arg) {
+        if (isEnabled(LogLevel.WARN, marker)) {
+            log(LogLevel.WARN, marker, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void warn(Marker marker, String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.WARN, marker)) {
+            log(LogLevel.WARN, marker, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void warn(Marker marker, String format, Object... arguments) {
+        if (isEnabled(LogLevel.WARN, marker)) {
+            log(LogLevel.WARN, marker, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void warn(Marker marker, String msg, Throwable t) {
+        if (isEnabled(LogLevel.WARN, marker)) {
+            log(LogLevel.WARN, marker, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return isEnabled(LogLevel.ERROR, null);
+    }
+
+    @Override
+    public void error(String msg) {
+        if (isEnabled(LogLevel.ERROR, null)) {
+            log(LogLevel.ERROR, null, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void error(String format, Object arg) {
+        if (isEnabled(LogLevel.ERROR, null)) {
+            log(LogLevel.ERROR, null, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void error(String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.ERROR, null)) {
+            log(LogLevel.ERROR, null, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void error(String format, Object... arguments) {
+        if (isEnabled(LogLevel.ERROR, null)) {
+            log(LogLevel.ERROR, null, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void error(String msg, Throwable t) {
+        if (isEnabled(LogLevel.ERROR, null)) {
+            log(LogLevel.ERROR, null, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public boolean isErrorEnabled(Marker marker) {
+        return isEnabled(LogLevel.ERROR, marker);
+    }
+
+    @Override
+    public void error(Marker marker, String msg) {
+        if (isEnabled(LogLevel.ERROR, marker)) {
+            log(LogLevel.ERROR, marker, msg, NO_ARGS, null);
+        }
+    }
+
+    @Override
+    public void error(Marker marker, String format, Object arg) {
+        if (isEnabled(LogLevel.ERROR, marker)) {
+            log(LogLevel.ERROR, marker, format, new Object[] { arg }, null);
+        }
+    }
+
+    @Override
+    public void error(Marker marker, String format, Object arg1, Object arg2) {
+        if (isEnabled(LogLevel.ERROR, marker)) {
+            log(LogLevel.ERROR, marker, format, new Object[] { arg1, arg2 }, null);
+        }
+    }
+
+    @Override
+    public void error(Marker marker, String format, Object... arguments) {
+        if (isEnabled(LogLevel.ERROR, marker)) {
+            log(LogLevel.ERROR, marker, format, arguments, null);
+        }
+    }
+
+    @Override
+    public void error(Marker marker, String msg, Throwable t) {
+        if (isEnabled(LogLevel.ERROR, marker)) {
+            log(LogLevel.ERROR, marker, msg, NO_ARGS, t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + getName() + "]";
+    }
+}
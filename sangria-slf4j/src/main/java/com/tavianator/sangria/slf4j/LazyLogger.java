@@ -0,0 +1,66 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+/**
+ * A {@link Logger} that looks up the real logger the first time it is used. {@link #getName()} doesn't count as a use.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class LazyLogger extends ForwardingLogger {
+    private final String name;
+    private volatile Logger delegate;
+
+    LazyLogger(String name) {
+        this.name = name;
+    }
+
+    @Override
+    Logger delegate() {
+        Logger result = delegate;
+        if (result == null) {
+            // Racing threads may both look the logger up, but they'll get the same one
+            result = LoggerFactory.getLogger(name);
+            delegate = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return Whether the real logger has been looked up yet.
+     */
+    boolean isResolved() {
+        return delegate != null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    void log(LogLevel level, Marker marker, String format, Object[] args, Throwable t) {
+        level.log(delegate(), marker, format, args, t);
+    }
+}
@@ -0,0 +1,223 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+import org.slf4j.spi.LocationAwareLogger;
+
+/**
+ * The SLF4J log levels, with the ability to dispatch to the corresponding {@link Logger} methods.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+enum LogLevel {
+    TRACE(LocationAwareLogger.TRACE_INT) {
+        @Override
+        boolean isEnabled(Logger logger, Marker marker) {
+            return marker == null ? logger.isTraceEnabled() : logger.isTraceEnabled(marker);
+        }
+
+        @Override
+        void forward(Logger logger, Marker marker, String format, Object[] args, Throwable t) {
+            if (marker == null) {
+                if (t != null) {
+                    logger.trace(format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.trace(format);
+                } else {
+                    logger.trace(format, args);
+                }
+            } else {
+                if (t != null) {
+                    logger.trace(marker, format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.trace(marker, format);
+                } else {
+                    logger.trace(marker, format, args);
+                }
+            }
+        }
+    },
+
+    DEBUG(LocationAwareLogger.DEBUG_INT) {
+        @Override
+        boolean isEnabled(Logger logger, Marker marker) {
+            return marker == null ? logger.isDebugEnabled() : logger.isDebugEnabled(marker);
+        }
+
+        @Override
+        void forward(Logger logger, Marker marker, String format, Object[] args, Throwable t) {
+            if (marker == null) {
+                if (t != null) {
+                    logger.debug(format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.debug(format);
+                } else {
+                    logger.debug(format, args);
+                }
+            } else {
+                if (t != null) {
+                    logger.debug(marker, format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.debug(marker, format);
+                } else {
+                    logger.debug(marker, format, args);
+                }
+            }
+        }
+    },
+
+    INFO(LocationAwareLogger.INFO_INT) {
+        @Override
+        boolean isEnabled(Logger logger, Marker marker) {
+            return marker == null ? logger.isInfoEnabled() : logger.isInfoEnabled(marker);
+        }
+
+        @Override
+        void forward(Logger logger, Marker marker, String format, Object[] args, Throwable t) {
+            if (marker == null) {
+                if (t != null) {
+                    logger.info(format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.info(format);
+                } else {
+                    logger.info(format, args);
+                }
+            } else {
+                if (t != null) {
+                    logger.info(marker, format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.info(marker, format);
+                } else {
+                    logger.info(marker, format, args);
+                }
+            }
+        }
+    },
+
+    WARN(LocationAwareLogger.WARN_INT) {
+        @Override
+        boolean isEnabled(Logger logger, Marker marker) {
+            return marker == null ? logger.isWarnEnabled() : logger.isWarnEnabled(marker);
+        }
+
+        @Override
+        void forward(Logger logger, Marker marker, String format, Object[] args, Throwable t) {
+            if (marker == null) {
+                if (t != null) {
+                    logger.warn(format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.warn(format);
+                } else {
+                    logger.warn(format, args);
+                }
+            } else {
+                if (t != null) {
+                    logger.warn(marker, format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.warn(marker, format);
+                } else {
+                    logger.warn(marker, format, args);
+                }
+            }
+        }
+    },
+
+    ERROR(LocationAwareLogger.ERROR_INT) {
+        @Override
+        boolean isEnabled(Logger logger, Marker marker) {
+            return marker == null ? logger.isErrorEnabled() : logger.isErrorEnabled(marker);
+        }
+
+        @Override
+        void forward(Logger logger, Marker marker, String format, Object[] args, Throwable t) {
+            if (marker == null) {
+                if (t != null) {
+                    logger.error(format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.error(format);
+                } else {
+                    logger.error(format, args);
+                }
+            } else {
+                if (t != null) {
+                    logger.error(marker, format, t);
+                } else if (args == null || args.length == 0) {
+                    logger.error(marker, format);
+                } else {
+                    logger.error(marker, format, args);
+                }
+            }
+        }
+    };
+
+    /** The class whose public methods are the entry points that callers use. */
+    private static final String FQCN = ForwardingLogger.class.getName();
+
+    /** The {@link LocationAwareLogger} constant for this level. */
+    private final int locationAwareLevel;
+
+    LogLevel(int locationAwareLevel) {
+        this.locationAwareLevel = locationAwareLevel;
+    }
+
+    /**
+     * @return Whether this level is enabled for the given logger and (possibly {@code null}) marker.
+     */
+    abstract boolean isEnabled(Logger logger, Marker marker);
+
+    /**
+     * Log a message at this level.
+     *
+     * <p>
+     * To keep the caller's location intact, the only {@link ForwardingLogger} frame on the stack must be the public
+     * method the caller invoked. So nested {@link ForwardingLogger}s are called through their internal methods, and
+     * anything else that supports it is told to skip past {@link ForwardingLogger} with {@link LocationAwareLogger}.
+     * </p>
+     *
+     * @param logger The logger to use.
+     * @param marker The marker, or {@code null}.
+     * @param format The message or format string.
+     * @param args The format arguments, possibly empty.
+     * @param t The exception to log, or {@code null}.
+     */
+    void log(Logger logger, Marker marker, String format, Object[] args, Throwable t) {
+        if (logger instanceof ForwardingLogger) {
+            ForwardingLogger forwarding = (ForwardingLogger)logger;
+            if (forwarding.isEnabled(this, marker)) {
+                forwarding.log(this, marker, format, args, t);
+            }
+        } else if (logger instanceof LocationAwareLogger) {
+            if (t == null && args != null && args.length > 0 && args[args.length - 1] instanceof Throwable) {
+                // Logger.info(format, arg, e) and friends treat a trailing exception specially, so do the same
+                t = (Throwable)args[args.length - 1];
+            }
+            ((LocationAwareLogger)logger).log(marker, FQCN, locationAwareLevel, format, args, t);
+        } else {
+            forward(logger, marker, format, args, t);
+        }
+    }
+
+    /**
+     * Log a message at this level through the plain {@link Logger} methods.
+     */
+    abstract void forward(Logger logger, Marker marker, String format, Object[] args, Throwable t);
+}
@@ -0,0 +1,37 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+/**
+ * What to do when an asynchronous logger's buffer is full.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ * @see SangriaSlf4jModule#withAsyncLogging(int, OverflowPolicy)
+ */
+public enum OverflowPolicy {
+    /**
+     * Discard the message. Logging never blocks, but messages may be lost under load.
+     */
+    DROP,
+    /**
+     * Wait for space in the buffer. No messages are lost, but logging may block under load.
+     */
+    BLOCK,
+}
@@ -21,19 +21,142 @@ import com.google.inject.AbstractModule;
 import org.slf4j.Logger;
 
 import com.tavianator.sangria.contextual.ContextSensitiveBinder;
+import com.tavianator.sangria.contextual.ContextSensitiveProvider;
+import com.tavianator.sangria.core.RateLimited;
+import com.tavianator.sangria.core.Sampled;
+
+import static com.google.common.base.Preconditions.*;
 
 /**
  * Module for SLF4J {@link Logger} injection.
  *
+ * <p>
+ * By default, the injected loggers log synchronously. For backends with slow, synchronous appenders, the module can
+ * instead inject loggers that hand messages off to a background thread:
+ * </p>
+ *
+ * <pre>
+ * install(new SangriaSlf4jModule().withAsyncLogging(8192, OverflowPolicy.DROP));
+ * </pre>
+ *
+ * <p>
+ * Loggers for hot loops can be throttled with the {@link Sampled} and {@link RateLimited} qualifiers:
+ * </p>
+ *
+ * <pre>
+ * {@literal @}Inject {@literal @}Sampled(1000) Logger logger;
+ * </pre>
+ *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.0
+ * @version 1.4
  * @since 1.0
  */
 public class SangriaSlf4jModule extends AbstractModule {
+    private final int asyncCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean asyncMdc;
+    private final boolean lazy;
+    private final boolean cacheLevels;
+
+    /**
+     * Create a {@link SangriaSlf4jModule} with the default options.
+     */
+    public SangriaSlf4jModule() {
+        this(0, null, false, false, false);
+    }
+
+    private SangriaSlf4jModule(
+            int asyncCapacity,
+            OverflowPolicy overflowPolicy,
+            boolean asyncMdc,
+            boolean lazy,
+            boolean cacheLevels) {
+        this.asyncCapacity = asyncCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.asyncMdc = asyncMdc;
+        this.lazy = lazy;
+        this.cacheLevels = cacheLevels;
+    }
+
+    /**
+     * Log asynchronously. Whether a level is enabled is still checked on the calling thread, but enabled messages are
+     * queued in a preallocated ring buffer and logged on a background thread. Backends that report the caller's
+     * location won't be able to do so for these messages.
+     *
+     * @param capacity The number of messages to buffer, which must be a power of two.
+     * @param policy What to do when the buffer is full.
+     * @return A copy of this module that injects asynchronous loggers.
+     */
+    public SangriaSlf4jModule withAsyncLogging(int capacity, OverflowPolicy policy) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "Capacity %s is not a power of two", capacity);
+        return new SangriaSlf4jModule(capacity, checkNotNull(policy), asyncMdc, lazy, cacheLevels);
+    }
+
+    /**
+     * Log asynchronous messages with the {@link org.slf4j.MDC} of the thread that logged them. This copies the MDC
+     * for every enabled message, so it's off by default. It has no effect unless {@link #withAsyncLogging(int,
+     * OverflowPolicy)} is also used.
+     *
+     * @return A copy of this module that captures the MDC for asynchronous messages.
+     */
+    public SangriaSlf4jModule withAsyncMdc() {
+        return new SangriaSlf4jModule(asyncCapacity, overflowPolicy, true, lazy, cacheLevels);
+    }
+
+    /**
+     * Defer creating loggers until they are first used. The injected loggers know their names, but the real logger is
+     * only looked up on the first call that logs or checks a level. Classes that never log never create a logger.
+     *
+     * @return A copy of this module that injects lazy loggers.
+     */
+    public SangriaSlf4jModule withLazyLoggers() {
+        return new SangriaSlf4jModule(asyncCapacity, overflowPolicy, asyncMdc, true, cacheLevels);
+    }
+
+    /**
+     * Cache whether each level is enabled in the injected loggers, so that disabled log statements in tight loops cost
+     * a single volatile read. Call {@link LevelCaches#invalidate()} whenever the logging configuration changes.
+     *
+     * <p>
+     * Only level checks without a {@link org.slf4j.Marker} are cached, and the cache assumes that the backend's
+     * decision doesn't change between configuration changes.
+     * </p>
+     *
+     * @return A copy of this module that injects loggers with cached level checks.
+     */
+    public SangriaSlf4jModule withCachedLevelChecks() {
+        return new SangriaSlf4jModule(asyncCapacity, overflowPolicy, asyncMdc, lazy, true);
+    }
+
     @Override
     protected void configure() {
-        ContextSensitiveBinder.create(binder())
+        ContextSensitiveBinder contextualBinder = ContextSensitiveBinder.create(binder());
+
+        ContextSensitiveProvider<Logger> loggers = new Slf4jLoggerProvider(lazy);
+        if (cacheLevels) {
+            loggers = CachingLoggerProvider.create(loggers);
+        }
+        if (overflowPolicy != null) {
+            loggers = AsyncLoggerProvider.create(loggers, asyncCapacity, overflowPolicy, asyncMdc);
+        }
+
+        if (overflowPolicy == null && !lazy && !cacheLevels) {
+            contextualBinder
+                    .bind(Logger.class)
+                    .toContextSensitiveProvider(Slf4jLoggerProvider.class);
+        } else {
+            contextualBinder
+                    .bind(Logger.class)
+                    .toContextSensitiveProvider(loggers);
+        }
+
+        contextualBinder
+                .bind(Logger.class)
+                .annotatedWith(Sampled.class)
+                .toContextSensitiveProvider(new ThrottledLoggerProvider(Sampled.class, loggers));
+        contextualBinder
                 .bind(Logger.class)
-                .toContextSensitiveProvider(Slf4jLoggerProvider.class);
+                .annotatedWith(RateLimited.class)
+                .toContextSensitiveProvider(new ThrottledLoggerProvider(RateLimited.class, loggers));
     }
 }
@@ -24,28 +24,69 @@ import com.google.inject.spi.InjectionPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.tavianator.sangria.contextual.ContextSensitiveProvider;
+import com.tavianator.sangria.contextual.ClassSensitiveProvider;
 
 /**
  * Actual {@link Logger} provider implementation.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.0
+ * @version 1.4
  * @since 1.0
  */
 @Singleton
-class Slf4jLoggerProvider implements ContextSensitiveProvider<Logger> {
+class Slf4jLoggerProvider implements ClassSensitiveProvider<Logger> {
+    private final boolean lazy;
+
     @Inject
     Slf4jLoggerProvider() {
+        this(false);
+    }
+
+    /**
+     * @param lazy Whether to defer creating the real loggers until they're used.
+     */
+    Slf4jLoggerProvider(boolean lazy) {
+        this.lazy = lazy;
     }
 
     @Override
     public Logger getInContext(InjectionPoint injectionPoint) {
-        return LoggerFactory.getLogger(injectionPoint.getDeclaringType().getRawType());
+        return getForClass(injectionPoint.getDeclaringType().getRawType());
+    }
+
+    @Override
+    public Logger getForClass(Class<?> type) {
+        if (lazy) {
+            return new LazyLogger(type.getName());
+        } else {
+            return LoggerFactory.getLogger(type);
+        }
     }
 
     @Override
     public Logger getInUnknownContext() {
-        return LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        if (lazy) {
+            return new LazyLogger(Logger.ROOT_LOGGER_NAME);
+        } else {
+            return LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+        }
+    }
+
+    // Allow binding de-duplication
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof Slf4jLoggerProvider)) {
+            return false;
+        }
+
+        Slf4jLoggerProvider other = (Slf4jLoggerProvider)obj;
+        return lazy == other.lazy;
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.valueOf(lazy).hashCode();
     }
 }
@@ -0,0 +1,60 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+
+import com.tavianator.sangria.core.Throttle;
+
+/**
+ * A {@link Logger} that drops messages according to a {@link Throttle}. The throttle is only consulted for enabled
+ * messages, and before they are formatted.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class ThrottledLogger extends ForwardingLogger {
+    private final Logger delegate;
+    private final Throttle throttle;
+
+    ThrottledLogger(Logger delegate, Throttle throttle) {
+        this.delegate = delegate;
+        this.throttle = throttle;
+    }
+
+    @Override
+    Logger delegate() {
+        return delegate;
+    }
+
+    /**
+     * @return The {@link Throttle} for this logger.
+     */
+    Throttle getThrottle() {
+        return throttle;
+    }
+
+    @Override
+    void log(LogLevel level, Marker marker, String format, Object[] args, Throwable t) {
+        if (throttle.tryAcquire()) {
+            level.log(delegate, marker, format, args, t);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.InjectionPoint;
+import org.slf4j.Logger;
+
+import com.tavianator.sangria.contextual.ContextSensitiveProvider;
+import com.tavianator.sangria.contextual.DependencySensitiveProvider;
+import com.tavianator.sangria.core.RateLimited;
+import com.tavianator.sangria.core.Sampled;
+import com.tavianator.sangria.core.Throttle;
+
+/**
+ * {@link Logger} provider implementation for {@link Sampled} and {@link RateLimited} loggers.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+class ThrottledLoggerProvider implements DependencySensitiveProvider<Logger> {
+    private final Class<? extends Annotation> annotationType;
+    private final ContextSensitiveProvider<Logger> loggers;
+    /** One logger, and so one throttle, per injection point, however many times it is injected. */
+    private final ConcurrentMap<Dependency<?>, Logger> throttledLoggers = new ConcurrentHashMap<>();
+
+    ThrottledLoggerProvider(Class<? extends Annotation> annotationType, ContextSensitiveProvider<Logger> loggers) {
+        this.annotationType = annotationType;
+        this.loggers = loggers;
+    }
+
+    @Override
+    public Logger getInContext(InjectionPoint injectionPoint) {
+        // Without the exact dependency, only an unambiguous injection point will do
+        Dependency<?> found = null;
+        for (Dependency<?> dependency : injectionPoint.getDependencies()) {
+            if (isThrottled(dependency)) {
+                if (found != null && !found.getKey().equals(dependency.getKey())) {
+                    throw new IllegalStateException(
+                            "Ambiguous @" + annotationType.getSimpleName() + " Loggers at " + injectionPoint);
+                }
+                found = dependency;
+            }
+        }
+
+        if (found == null) {
+            throw new IllegalStateException("No @" + annotationType.getSimpleName() + " Logger at " + injectionPoint);
+        }
+        return getForDependency(found);
+    }
+
+    @Override
+    public Logger getForDependency(Dependency<?> dependency) {
+        if (!isThrottled(dependency)) {
+            throw new IllegalArgumentException(dependency + " is not a @" + annotationType.getSimpleName() + " Logger");
+        }
+
+        Logger logger = throttledLoggers.get(dependency);
+        if (logger == null) {
+            Annotation annotation = dependency.getKey().getAnnotation();
+            logger = new ThrottledLogger(
+                    loggers.getInContext(dependency.getInjectionPoint()), Throttle.forAnnotation(annotation));
+
+            Logger existing = throttledLoggers.putIfAbsent(dependency, logger);
+            if (existing != null) {
+                logger = existing;
+            }
+        }
+        return logger;
+    }
+
+    private boolean isThrottled(Dependency<?> dependency) {
+        Annotation annotation = dependency.getKey().getAnnotation();
+        return annotation != null
+                && annotation.annotationType() == annotationType
+                && dependency.getKey().getTypeLiteral().getRawType() == Logger.class;
+    }
+
+    @Override
+    public Logger getInUnknownContext() {
+        throw new UnsupportedOperationException(
+                "@" + annotationType.getSimpleName() + " Loggers must be injected directly, not through a Provider");
+    }
+
+    // Allow binding de-duplication
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof ThrottledLoggerProvider)) {
+            return false;
+        }
+
+        ThrottledLoggerProvider other = (ThrottledLoggerProvider)obj;
+        return annotationType.equals(other.annotationType)
+                && loggers.equals(other.loggers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31*annotationType.hashCode() + loggers.hashCode();
+    }
+}
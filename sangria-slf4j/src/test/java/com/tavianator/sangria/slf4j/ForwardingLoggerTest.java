@@ -0,0 +1,345 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.slf4j;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.slf4j.helpers.BasicMDCAdapter;
+import org.slf4j.spi.LocationAwareLogger;
+import org.slf4j.spi.MDCAdapter;
+
+import com.tavianator.sangria.core.Throttle;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AsyncLogger} and {@link AsyncDispatcher}, and other {@link ForwardingLogger}s.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class ForwardingLoggerTest {
+    /**
+     * A {@link Logger} that records formatted messages.
+     */
+    private static class RecordingLogger extends ForwardingLogger {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> users = Collections.synchronizedList(new ArrayList<String>());
+        volatile CountDownLatch latch = null;
+        volatile Error failure = null;
+        volatile boolean traceEnabled = false;
+        int levelChecks = 0;
+
+        @Override
+        Logger delegate() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        boolean isEnabled(LogLevel level, Marker marker) {
+            ++levelChecks;
+            return traceEnabled || level != LogLevel.TRACE;
+        }
+
+        @Override
+        void log(LogLevel level, Marker marker, String format, Object[] args, Throwable t) {
+            CountDownLatch latch = this.latch;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+
+            Error failure = this.failure;
+            if (failure != null) {
+                throw failure;
+            }
+
+            messages.add(level + " " + String.format(format, args));
+            users.add(MDC.get("user"));
+        }
+    }
+
+    /**
+     * A {@link LocationAwareLogger} that records where each message was logged from, found the same way logback does
+     * it: skip to the first frame from the logger class, and report the first frame after that which isn't.
+     */
+    private static class LocatingHandler implements InvocationHandler {
+        final List<String> callers = new ArrayList<>();
+
+        LocationAwareLogger newLogger() {
+            return (LocationAwareLogger)Proxy.newProxyInstance(
+                    LocationAwareLogger.class.getClassLoader(), new Class<?>[] { LocationAwareLogger.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getReturnType() == boolean.class) {
+                return true;
+            } else if (method.getName().equals("log")) {
+                callers.add(findCaller((String)args[1]));
+                return null;
+            } else {
+                throw new UnsupportedOperationException(method.toString());
+            }
+        }
+
+        private static String findCaller(String fqcn) {
+            boolean found = false;
+            for (StackTraceElement frame : new Throwable().getStackTrace()) {
+                if (frame.getClassName().equals(fqcn)) {
+                    found = true;
+                } else if (found) {
+                    return frame.getClassName() + "." + frame.getMethodName();
+                }
+            }
+            return null;
+        }
+    }
+
+    @Test
+    public void testCallerLocation() {
+        LocatingHandler handler = new LocatingHandler();
+        Logger logger = new CachingLogger(new ThrottledLogger(handler.newLogger(), Throttle.sampling(1)));
+
+        logger.info("message");
+        logger.warn("{} {}", 1, 2);
+        logger.error("error", new Exception());
+
+        String caller = ForwardingLoggerTest.class.getName() + ".testCallerLocation";
+        assertThat(handler.callers, contains(caller, caller, caller));
+    }
+
+    @Test
+    public void testThrottledLogger() {
+        RecordingLogger recorder = new RecordingLogger();
+        Logger logger = new ThrottledLogger(recorder, Throttle.sampling(2));
+
+        for (int i = 0; i < 6; ++i) {
+            logger.trace("%s", i);
+            logger.info("%s", i);
+        }
+
+        // Disabled messages don't count towards the sample
+        assertThat(recorder.messages, contains("INFO 0", "INFO 2", "INFO 4"));
+    }
+
+    @Test
+    public void testCachingLogger() {
+        RecordingLogger recorder = new RecordingLogger();
+        Logger logger = new CachingLogger(recorder);
+
+        assertThat(logger.isTraceEnabled(), is(false));
+        assertThat(logger.isTraceEnabled(), is(false));
+        assertThat(logger.isInfoEnabled(), is(true));
+        assertThat(logger.isInfoEnabled(), is(true));
+        assertThat(recorder.levelChecks, equalTo(2));
+
+        recorder.traceEnabled = true;
+        assertThat(logger.isTraceEnabled(), is(false));
+
+        LevelCaches.invalidate();
+        assertThat(logger.isTraceEnabled(), is(true));
+        assertThat(logger.isTraceEnabled(), is(true));
+        assertThat(recorder.levelChecks, equalTo(3));
+
+        logger.trace("%s", "trace");
+        assertThat(recorder.messages, contains("TRACE trace"));
+    }
+
+    @Test
+    public void testOrdering() {
+        RecordingLogger recorder = new RecordingLogger();
+        AsyncDispatcher dispatcher = new AsyncDispatcher(8, OverflowPolicy.BLOCK, false);
+        Logger logger = new AsyncLogger(recorder, dispatcher);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            logger.info("%s", i);
+            expected.add("INFO " + i);
+        }
+        assertThat(dispatcher.flush(), is(true));
+
+        assertThat(recorder.messages, equalTo(expected));
+        assertThat(dispatcher.getDroppedCount(), equalTo(0L));
+    }
+
+    @Test
+    public void testDisabledLevel() {
+        RecordingLogger recorder = new RecordingLogger();
+        AsyncDispatcher dispatcher = new AsyncDispatcher(8, OverflowPolicy.BLOCK, false);
+        Logger logger = new AsyncLogger(recorder, dispatcher);
+
+        assertThat(logger.isTraceEnabled(), is(false));
+        logger.trace("%s", "trace");
+        logger.debug("%s", "debug");
+        assertThat(dispatcher.flush(), is(true));
+
+        assertThat(recorder.messages, contains("DEBUG debug"));
+    }
+
+    @Test
+    public void testDropPolicy() throws InterruptedException {
+        RecordingLogger recorder = new RecordingLogger();
+        recorder.latch = new CountDownLatch(1);
+        AsyncDispatcher dispatcher = new AsyncDispatcher(2, OverflowPolicy.DROP, false);
+        Logger logger = new AsyncLogger(recorder, dispatcher);
+
+        // The first message blocks the consumer thread once it's taken from the buffer
+        logger.warn("%s", 0);
+        while (dispatcher.getDroppedCount() == 0) {
+            logger.warn("%s", 1);
+            Thread.sleep(1);
+        }
+        recorder.latch.countDown();
+        assertThat(dispatcher.flush(), is(true));
+
+        assertThat(recorder.messages.size(), lessThanOrEqualTo(4));
+        assertThat(recorder.messages.get(0), equalTo("WARN 0"));
+    }
+
+    /**
+     * Replace the backend's {@link MDCAdapter}, since the one from slf4j-simple doesn't store anything.
+     *
+     * @return The previous adapter.
+     */
+    private static MDCAdapter setMdcAdapter(MDCAdapter adapter) throws ReflectiveOperationException {
+        Field field = MDC.class.getDeclaredField("mdcAdapter");
+        field.setAccessible(true);
+        MDCAdapter previous = (MDCAdapter)field.get(null);
+        field.set(null, adapter);
+        return previous;
+    }
+
+    @Test
+    public void testMdc() throws ReflectiveOperationException {
+        MDCAdapter previous = setMdcAdapter(new BasicMDCAdapter());
+        try {
+            RecordingLogger recorder = new RecordingLogger();
+            AsyncDispatcher dispatcher = new AsyncDispatcher(8, OverflowPolicy.BLOCK, true);
+            Logger logger = new AsyncLogger(recorder, dispatcher);
+
+            MDC.put("user", "alice");
+            logger.info("%s", 0);
+            MDC.put("user", "bob");
+            logger.info("%s", 1);
+            MDC.clear();
+            logger.info("%s", 2);
+            assertThat(dispatcher.flush(), is(true));
+
+            assertThat(recorder.users, contains("alice", "bob", null));
+        } finally {
+            MDC.clear();
+            setMdcAdapter(previous);
+        }
+    }
+
+    @Test
+    public void testMdcNotCaptured() throws ReflectiveOperationException {
+        MDCAdapter previous = setMdcAdapter(new BasicMDCAdapter());
+        try {
+            RecordingLogger recorder = new RecordingLogger();
+            AsyncDispatcher dispatcher = new AsyncDispatcher(8, OverflowPolicy.BLOCK, false);
+            Logger logger = new AsyncLogger(recorder, dispatcher);
+
+            MDC.put("user", "alice");
+            logger.info("%s", 0);
+            assertThat(dispatcher.flush(), is(true));
+
+            assertThat(recorder.users, contains((String)null));
+        } finally {
+            MDC.clear();
+            setMdcAdapter(previous);
+        }
+    }
+
+    @Test
+    public void testIdleStop() throws InterruptedException {
+        RecordingLogger recorder = new RecordingLogger();
+        AsyncDispatcher dispatcher = new AsyncDispatcher(8, OverflowPolicy.BLOCK, false);
+        Logger logger = new AsyncLogger(recorder, dispatcher);
+        assertThat(dispatcher.isRunning(), is(false));
+
+        logger.info("%s", 0);
+        assertThat(dispatcher.isRunning(), is(true));
+        assertThat(dispatcher.flush(), is(true));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (dispatcher.isRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dispatcher.isRunning(), is(false));
+
+        // Restarted on demand
+        logger.info("%s", 1);
+        assertThat(dispatcher.flush(), is(true));
+        assertThat(recorder.messages, contains("INFO 0", "INFO 1"));
+    }
+
+    @Test
+    public void testBackendFailure() {
+        RecordingLogger recorder = new RecordingLogger();
+        recorder.failure = new AssertionError("backend failure");
+        AsyncDispatcher dispatcher = new AsyncDispatcher(8, OverflowPolicy.BLOCK, false);
+        Logger logger = new AsyncLogger(recorder, dispatcher);
+
+        logger.error("%s", 0);
+        assertThat(dispatcher.flush(), is(true));
+        assertThat(dispatcher.getFailedCount(), equalTo(1L));
+
+        // The consumer thread survives
+        recorder.failure = null;
+        logger.error("%s", 1);
+        assertThat(dispatcher.flush(), is(true));
+        assertThat(recorder.messages, contains("ERROR 1"));
+    }
+
+    @Test
+    public void testFlushTimeout() {
+        RecordingLogger recorder = new RecordingLogger();
+        recorder.latch = new CountDownLatch(1);
+        AsyncDispatcher dispatcher = new AsyncDispatcher(8, OverflowPolicy.BLOCK, false);
+        Logger logger = new AsyncLogger(recorder, dispatcher);
+
+        logger.info("%s", 0);
+        assertThat(dispatcher.flush(10, TimeUnit.MILLISECONDS), is(false));
+
+        recorder.latch.countDown();
+        assertThat(dispatcher.flush(), is(true));
+        assertThat(recorder.messages, contains("INFO 0"));
+    }
+}
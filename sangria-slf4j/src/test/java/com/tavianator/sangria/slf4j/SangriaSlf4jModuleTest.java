@@ -23,11 +23,15 @@ import javax.inject.Provider;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
 import com.google.inject.Provides;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 
+import com.tavianator.sangria.core.RateLimited;
+import com.tavianator.sangria.core.Sampled;
+
 import static com.tavianator.sangria.test.SangriaMatchers.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -42,6 +46,8 @@ import static org.junit.Assert.*;
 public class SangriaSlf4jModuleTest {
     @Inject Logger logger;
     @Inject Provider<Logger> provider;
+    @Inject @Sampled(2) Logger sampledLogger;
+    @Inject @RateLimited(100) Logger rateLimitedLogger;
 
     @Before
     public void setUp() {
@@ -58,6 +64,50 @@ public class SangriaSlf4jModuleTest {
         assertThat(provider.get().getName(), equalTo(Logger.ROOT_LOGGER_NAME));
     }
 
+    @Test
+    public void testThrottledLoggers() {
+        assertThat(sampledLogger, instanceOf(ThrottledLogger.class));
+        assertThat(sampledLogger.getName(), equalTo(SangriaSlf4jModuleTest.class.getName()));
+        assertThat(rateLimitedLogger, instanceOf(ThrottledLogger.class));
+        assertThat(rateLimitedLogger.getName(), equalTo(SangriaSlf4jModuleTest.class.getName()));
+    }
+
+    static class HasThrottledLoggers {
+        final Logger often;
+        final Logger rarely;
+        final Logger limited;
+
+        @Inject
+        HasThrottledLoggers(@Sampled(2) Logger often, @Sampled(1000) Logger rarely, @RateLimited(100) Logger limited) {
+            this.often = often;
+            this.rarely = rarely;
+            this.limited = limited;
+        }
+    }
+
+    @Test
+    public void testDifferentlyThrottledParameters() {
+        HasThrottledLoggers loggers = Guice.createInjector(new SangriaSlf4jModule())
+                .getInstance(HasThrottledLoggers.class);
+
+        assertThat(((ThrottledLogger)loggers.often).getThrottle().toString(), equalTo("Throttle.sampling(2)"));
+        assertThat(((ThrottledLogger)loggers.rarely).getThrottle().toString(), equalTo("Throttle.sampling(1000)"));
+        assertThat(((ThrottledLogger)loggers.limited).getThrottle().toString(), startsWith("Throttle.rateLimiting("));
+    }
+
+    @Test
+    public void testThrottlesSharedBetweenInstances() {
+        Injector injector = Guice.createInjector(new SangriaSlf4jModule());
+        HasThrottledLoggers first = injector.getInstance(HasThrottledLoggers.class);
+        HasThrottledLoggers second = injector.getInstance(HasThrottledLoggers.class);
+
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second.often, sameInstance(first.often));
+        assertThat(second.rarely, sameInstance(first.rarely));
+        assertThat(second.limited, sameInstance(first.limited));
+        assertThat(first.often, not(sameInstance(first.rarely)));
+    }
+
     static class HasProviderMethod extends AbstractModule {
         @Override
         protected void configure() {
@@ -82,4 +132,75 @@ public class SangriaSlf4jModuleTest {
         assertThat(new SangriaSlf4jModule(), is(atomic()));
         assertThat(new SangriaSlf4jModule(), followsBestPractices());
     }
+
+    @Test
+    public void testAsyncLogger() {
+        Injector injector = Guice.createInjector(new SangriaSlf4jModule().withAsyncLogging(16, OverflowPolicy.DROP));
+        injector.injectMembers(this);
+
+        assertThat(logger, instanceOf(AsyncLogger.class));
+        assertThat(logger.getName(), equalTo(SangriaSlf4jModuleTest.class.getName()));
+        assertThat(provider.get(), instanceOf(AsyncLogger.class));
+    }
+
+    @Test
+    public void testLazyLogger() {
+        Injector injector = Guice.createInjector(new SangriaSlf4jModule().withLazyLoggers());
+        injector.injectMembers(this);
+
+        assertThat(logger, instanceOf(LazyLogger.class));
+        assertThat(logger.getName(), equalTo(SangriaSlf4jModuleTest.class.getName()));
+        assertThat(((LazyLogger)logger).isResolved(), is(false));
+
+        logger.isDebugEnabled();
+        assertThat(((LazyLogger)logger).isResolved(), is(true));
+    }
+
+    @Test
+    public void testLazyBestPractices() {
+        Module module = new SangriaSlf4jModule()
+                .withLazyLoggers()
+                .withCachedLevelChecks()
+                .withAsyncLogging(16, OverflowPolicy.DROP);
+        assertThat(module, is(atomic()));
+        assertThat(module, followsBestPractices());
+    }
+
+    @Test
+    public void testCachingLogger() {
+        Injector injector = Guice.createInjector(new SangriaSlf4jModule().withCachedLevelChecks());
+        injector.injectMembers(this);
+
+        assertThat(logger, instanceOf(CachingLogger.class));
+        assertThat(logger.getName(), equalTo(SangriaSlf4jModuleTest.class.getName()));
+        assertThat(sampledLogger, instanceOf(ThrottledLogger.class));
+    }
+
+    static class HasTwoLoggers {
+        @Inject Logger first;
+        @Inject Logger second;
+    }
+
+    @Test
+    public void testClassSensitiveWrappers() {
+        Module[] modules = {
+            new SangriaSlf4jModule(),
+            new SangriaSlf4jModule().withCachedLevelChecks(),
+            new SangriaSlf4jModule().withAsyncLogging(16, OverflowPolicy.DROP),
+            new SangriaSlf4jModule().withCachedLevelChecks().withAsyncLogging(16, OverflowPolicy.DROP),
+        };
+
+        for (Module module : modules) {
+            HasTwoLoggers instance = Guice.createInjector(module).getInstance(HasTwoLoggers.class);
+            assertThat(instance.first, sameInstance(instance.second));
+            assertThat(instance.first.getName(), equalTo(HasTwoLoggers.class.getName()));
+        }
+    }
+
+    @Test
+    public void testAsyncBestPractices() {
+        Module module = new SangriaSlf4jModule().withAsyncLogging(16, OverflowPolicy.BLOCK);
+        assertThat(module, is(atomic()));
+        assertThat(module, followsBestPractices());
+    }
 }
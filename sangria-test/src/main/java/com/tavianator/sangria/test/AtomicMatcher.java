@@ -28,15 +28,16 @@ import org.hamcrest.TypeSafeDiagnosingMatcher;
  * Matcher that checks whether a {@link Module} can be installed multiple times.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.2
+ * @version 1.4
  * @since 1.2
  */
 final class AtomicMatcher extends TypeSafeDiagnosingMatcher<Module> {
     @Override
     protected boolean matchesSafely(Module item, Description mismatchDescription) {
         // Pass through the SPI to make sure the Module is atomic regardless of its equals() implementation
-        // This ensures atomicity even through Modules.override(), for example
-        Module copy1 = Elements.getModule(Elements.getElements(item));
+        // This ensures atomicity even through Modules.override(), for example. The second copy must be a fresh
+        // recording, or a Module that binds something different each time would look atomic.
+        Module copy1 = CachedElements.getModule(item);
         Module copy2 = Elements.getModule(Elements.getElements(item));
 
         try {
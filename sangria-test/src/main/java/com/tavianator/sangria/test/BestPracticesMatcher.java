@@ -28,7 +28,7 @@ import org.hamcrest.TypeSafeDiagnosingMatcher;
  * Matcher that checks whether a {@link Module} follows Guice best practices.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.2
+ * @version 1.4
  * @since 1.2
  */
 final class BestPracticesMatcher extends TypeSafeDiagnosingMatcher<Module> {
@@ -44,7 +44,7 @@ final class BestPracticesMatcher extends TypeSafeDiagnosingMatcher<Module> {
     @Override
     protected boolean matchesSafely(Module item, Description mismatchDescription) {
         try {
-            Guice.createInjector(item, new EnforcerModule());
+            Guice.createInjector(CachedElements.getModule(item), new EnforcerModule());
             return true;
         } catch (CreationException e) {
             mismatchDescription.appendValue(e);
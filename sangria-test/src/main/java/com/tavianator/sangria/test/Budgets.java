@@ -0,0 +1,42 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting utilities for time budgets.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+final class Budgets {
+    private Budgets() {
+        // Not for instantiating
+    }
+
+    static String format(long time, TimeUnit unit) {
+        return time + " " + unit.name().toLowerCase(Locale.ROOT);
+    }
+
+    static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f milliseconds", nanos / 1.0e6);
+    }
+}
@@ -0,0 +1,138 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+import com.google.inject.PrivateModule;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.InjectionRequest;
+import com.google.inject.spi.InstanceBinding;
+import com.google.inject.spi.MembersInjectorLookup;
+import com.google.inject.spi.PrivateElements;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProviderLookup;
+
+/**
+ * A cache of recorded {@link Module} {@link Element}s, to avoid running the same {@link Module#configure} methods over
+ * and over in large test suites.
+ *
+ * <p>
+ * Recordings are cached per module instance. Modules without any instance fields can't behave differently from one
+ * instance to the next, so their recordings are shared by every instance of the class. The cache holds its keys
+ * weakly, so it doesn't keep modules or their classes alive. Recordings that look up providers or members injectors,
+ * or that hold instances Guice would inject, can only be replayed once, so they are never cached.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class CachedElements {
+    private static final ClassValue<Boolean> STATELESS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> c = type; c != null && !isBaseModule(c); c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    };
+
+    private static final Cache<Object, List<Element>> CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private CachedElements() {
+        // Not for instantiating
+    }
+
+    private static boolean isBaseModule(Class<?> type) {
+        return type == Object.class || type == AbstractModule.class || type == PrivateModule.class;
+    }
+
+    /**
+     * @return The key to cache a module's recording under.
+     */
+    static Object cacheKey(Module module) {
+        Class<?> type = module.getClass();
+        return STATELESS.get(type) ? type : module;
+    }
+
+    /**
+     * Get the recorded {@link Element}s of a {@link Module}, recording it if necessary.
+     *
+     * @param module The module to record.
+     * @return The recorded elements, as from {@link Elements#getElements(Module...)}.
+     */
+    public static List<Element> getElements(Module module) {
+        Object key = cacheKey(module);
+        List<Element> elements = CACHE.getIfPresent(key);
+        if (elements == null) {
+            elements = Collections.unmodifiableList(Elements.getElements(module));
+            if (isReplayable(elements)) {
+                CACHE.put(key, elements);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Lookups (from {@link com.google.inject.Binder#getProvider} and friends) are bound to the first injector they're
+     * replayed into, so recordings that contain them can't be shared. Neither can recordings of provider instances, or
+     * of other instances with members to inject, since every injector they're replayed into would inject them again.
+     */
+    private static boolean isReplayable(Iterable<Element> elements) {
+        for (Element element : elements) {
+            if (element instanceof ProviderLookup || element instanceof MembersInjectorLookup) {
+                return false;
+            } else if (element instanceof ProviderInstanceBinding) {
+                return false;
+            } else if (element instanceof InstanceBinding
+                    && !((InstanceBinding<?>)element).getInjectionPoints().isEmpty()) {
+                return false;
+            } else if (element instanceof InjectionRequest) {
+                return false;
+            } else if (element instanceof PrivateElements && !isReplayable(((PrivateElements)element).getElements())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a {@link Module} that replays the cached recording of another {@link Module}.
+     *
+     * @param module The module to record.
+     * @return A module that replays the recorded elements, as from {@link Elements#getModule(Iterable)}.
+     */
+    public static Module getModule(Module module) {
+        return Elements.getModule(getElements(module));
+    }
+}
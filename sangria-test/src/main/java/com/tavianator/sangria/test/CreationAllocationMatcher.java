@@ -0,0 +1,82 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.lang.management.ManagementFactory;
+
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import org.hamcrest.Description;
+
+/**
+ * Matcher that checks how much memory is allocated while creating an {@link com.google.inject.Injector} from a {@link
+ * Module}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+final class CreationAllocationMatcher extends MeasuringMatcher {
+    private final long bytes;
+
+    CreationAllocationMatcher(long bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    boolean measure(Module item, Description mismatchDescription) {
+        // Allocation counters are only available through the HotSpot extension of ThreadMXBean
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            mismatchDescription.appendText("thread allocation counters are not available on this JVM");
+            return false;
+        }
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)bean;
+        if (!threadBean.isThreadAllocatedMemorySupported()) {
+            mismatchDescription.appendText("thread allocation counters are not supported on this JVM");
+            return false;
+        }
+        if (!threadBean.isThreadAllocatedMemoryEnabled()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long start = threadBean.getThreadAllocatedBytes(threadId);
+        try {
+            Guice.createInjector(item);
+        } catch (CreationException e) {
+            mismatchDescription.appendValue(e);
+            return false;
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        if (allocated > bytes) {
+            mismatchDescription.appendText("allocated " + allocated + " bytes");
+            return false;
+        } else {
+            return true;
+        }
+    }
+
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("a Module whose Injector is created allocating at most " + bytes + " bytes");
+    }
+}
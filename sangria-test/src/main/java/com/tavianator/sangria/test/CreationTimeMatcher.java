@@ -0,0 +1,67 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import org.hamcrest.Description;
+
+/**
+ * Matcher that checks whether an {@link com.google.inject.Injector} can be created from a {@link Module} within a time
+ * budget.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+final class CreationTimeMatcher extends MeasuringMatcher {
+    private final long time;
+    private final TimeUnit unit;
+
+    CreationTimeMatcher(long time, TimeUnit unit) {
+        this.time = time;
+        this.unit = unit;
+    }
+
+    @Override
+    boolean measure(Module item, Description mismatchDescription) {
+        long start = System.nanoTime();
+        try {
+            Guice.createInjector(item);
+        } catch (CreationException e) {
+            mismatchDescription.appendValue(e);
+            return false;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (elapsed > unit.toNanos(time)) {
+            mismatchDescription.appendText("took " + Budgets.formatNanos(elapsed));
+            return false;
+        } else {
+            return true;
+        }
+    }
+
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("a Module whose Injector is created within " + Budgets.format(time, unit));
+    }
+}
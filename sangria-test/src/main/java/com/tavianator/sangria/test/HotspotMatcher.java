@@ -0,0 +1,55 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import com.google.inject.CreationException;
+import com.google.inject.Module;
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Matcher that checks whether a {@link Module} has any {@link ProvisioningHotspot}s.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+final class HotspotMatcher extends TypeSafeDiagnosingMatcher<Module> {
+    @Override
+    protected boolean matchesSafely(Module item, Description mismatchDescription) {
+        ProvisioningReport report;
+        try {
+            report = ProvisioningAnalyzer.analyze(item);
+        } catch (CreationException e) {
+            mismatchDescription.appendValue(e);
+            return false;
+        }
+
+        if (report.isEmpty()) {
+            return true;
+        } else {
+            mismatchDescription.appendText(report.toString());
+            return false;
+        }
+    }
+
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("a Module without provisioning hotspots");
+    }
+}
@@ -0,0 +1,87 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import com.google.inject.Module;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+
+/**
+ * Base class for matchers that take a measurement of a {@link Module}. Hamcrest normally asks for the mismatch
+ * description by matching a second time, which would take a different measurement than the one that failed, and
+ * double the cost. Instead, the result of the last measurement is kept and reused for its description.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+abstract class MeasuringMatcher extends BaseMatcher<Module> {
+    /**
+     * The outcome of measuring a particular {@link Module}.
+     */
+    private static final class Measurement {
+        final Object item;
+        final boolean matched;
+        final String mismatch;
+
+        Measurement(Object item, boolean matched, String mismatch) {
+            this.item = item;
+            this.matched = matched;
+            this.mismatch = mismatch;
+        }
+    }
+
+    private volatile Measurement last = null;
+
+    /**
+     * Take a measurement of a {@link Module}.
+     *
+     * @param item The module to measure.
+     * @param mismatchDescription The description to append to if the measurement is out of budget.
+     * @return Whether the measurement is within budget.
+     */
+    abstract boolean measure(Module item, Description mismatchDescription);
+
+    @Override
+    public final boolean matches(Object item) {
+        if (!(item instanceof Module)) {
+            return false;
+        }
+
+        StringDescription mismatch = new StringDescription();
+        boolean matched = measure((Module)item, mismatch);
+        last = new Measurement(item, matched, mismatch.toString());
+        return matched;
+    }
+
+    @Override
+    public final void describeMismatch(Object item, Description description) {
+        if (!(item instanceof Module)) {
+            super.describeMismatch(item, description);
+            return;
+        }
+
+        Measurement measurement = last;
+        if (measurement == null || measurement.item != item) {
+            matches(item);
+            measurement = last;
+        }
+        description.appendText(measurement.mismatch);
+    }
+}
@@ -0,0 +1,82 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.google.inject.ProvisionException;
+import org.hamcrest.Description;
+
+/**
+ * Matcher that checks whether a {@link Module} can provision a {@link Key} within a time budget. Only the first
+ * provision is timed, since that's the one that pays for class loading, just-in-time bindings, and scoping.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+final class ProvisionTimeMatcher extends MeasuringMatcher {
+    private final Key<?> key;
+    private final long time;
+    private final TimeUnit unit;
+
+    ProvisionTimeMatcher(Key<?> key, long time, TimeUnit unit) {
+        this.key = key;
+        this.time = time;
+        this.unit = unit;
+    }
+
+    @Override
+    boolean measure(Module item, Description mismatchDescription) {
+        Provider<?> provider;
+        try {
+            Injector injector = Guice.createInjector(item);
+            provider = injector.getProvider(key);
+        } catch (CreationException e) {
+            mismatchDescription.appendValue(e);
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            provider.get();
+        } catch (ProvisionException e) {
+            mismatchDescription.appendValue(e);
+            return false;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (elapsed > unit.toNanos(time)) {
+            mismatchDescription.appendText("provisioning " + key + " took " + Budgets.formatNanos(elapsed));
+            return false;
+        } else {
+            return true;
+        }
+    }
+
+    @Override
+    public void describeTo(Description description) {
+        description.appendText("a Module that provisions " + key + " within " + Budgets.format(time, unit));
+    }
+}
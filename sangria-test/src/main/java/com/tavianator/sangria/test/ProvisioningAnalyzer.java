@@ -0,0 +1,272 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import com.google.inject.Binding;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.Stage;
+import com.google.inject.spi.BindingScopingVisitor;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.HasDependencies;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.PrivateElements;
+import com.google.inject.spi.ProvisionListenerBinding;
+
+/**
+ * Walks the bindings of a set of {@link Module}s looking for patterns that are expensive at run time, and ranks them
+ * by an estimate of their cost:
+ *
+ * <ul>
+ * <li>Unscoped bindings injected into singletons through a {@code Provider}, which is usually called in a loop</li>
+ * <li>Unscoped collections, like those from a {@code ListBinder}, injected into unscoped classes</li>
+ * <li>Bindings with provision listeners, like those from a {@code ContextSensitiveBinder}, injected into unscoped
+ * classes</li>
+ * </ul>
+ *
+ * <p>
+ * The cost of a binding is estimated as the number of objects built by one provision of it: the binding itself, plus
+ * all its transitive dependencies that aren't singletons. The injector is created in {@link Stage#TOOL}, so nothing
+ * is actually instantiated.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class ProvisioningAnalyzer {
+    private static final Set<Class<?>> PROVIDER_TYPES = new HashSet<Class<?>>(Arrays.asList(
+            com.google.inject.Provider.class,
+            javax.inject.Provider.class));
+
+    private static final Set<Class<?>> COLLECTION_TYPES = new HashSet<Class<?>>(Arrays.asList(
+            Collection.class,
+            List.class,
+            Set.class,
+            Map.class));
+
+    private final Injector injector;
+    private final List<ProvisionListenerBinding> listenerBindings = new ArrayList<>();
+    private final Map<Key<?>, Integer> costs = new HashMap<>();
+
+    private ProvisioningAnalyzer(Iterable<Element> elements) {
+        collectListeners(elements);
+
+        List<Module> modules = Collections.singletonList(Elements.getModule(elements));
+        this.injector = Guice.createInjector(Stage.TOOL, modules);
+    }
+
+    /**
+     * Analyze some {@link Module}s.
+     *
+     * @param modules The modules to analyze.
+     * @return A report of the hotspots found.
+     * @throws com.google.inject.CreationException If an injector can't be created from the modules.
+     */
+    public static ProvisioningReport analyze(Module... modules) {
+        List<Element> elements = new ArrayList<>();
+        for (Module module : modules) {
+            elements.addAll(CachedElements.getElements(module));
+        }
+        return new ProvisioningAnalyzer(elements).analyze();
+    }
+
+    private void collectListeners(Iterable<? extends Element> elements) {
+        for (Element element : elements) {
+            if (element instanceof ProvisionListenerBinding) {
+                listenerBindings.add((ProvisionListenerBinding)element);
+            } else if (element instanceof PrivateElements) {
+                collectListeners(((PrivateElements)element).getElements());
+            }
+        }
+    }
+
+    private ProvisioningReport analyze() {
+        List<ProvisioningHotspot> hotspots = new ArrayList<>();
+
+        for (Binding<?> binding : injector.getAllBindings().values()) {
+            if (!(binding instanceof HasDependencies)) {
+                continue;
+            }
+
+            boolean singleton = Scopes.isSingleton(binding);
+            boolean unscoped = isUnscoped(binding);
+            if (!singleton && !unscoped) {
+                continue;
+            }
+
+            Key<?> consumer = binding.getKey();
+            for (Dependency<?> dependency : ((HasDependencies)binding).getDependencies()) {
+                Key<?> key = dependency.getKey();
+                Key<?> provided = providedKey(key);
+
+                if (provided != null) {
+                    Binding<?> target = injector.getExistingBinding(provided);
+                    if (singleton && target != null && isUnscoped(target)) {
+                        hotspots.add(new ProvisioningHotspot(
+                                ProvisioningHotspot.Kind.PROVIDER_OF_UNSCOPED, consumer, provided, cost(provided)));
+                    }
+                } else if (unscoped) {
+                    Binding<?> target = injector.getExistingBinding(key);
+                    if (target == null) {
+                        continue;
+                    }
+
+                    if (COLLECTION_TYPES.contains(key.getTypeLiteral().getRawType()) && isUnscoped(target)) {
+                        hotspots.add(new ProvisioningHotspot(
+                                ProvisioningHotspot.Kind.COLLECTION_IN_PROTOTYPE, consumer, key, cost(key)));
+                    } else if (hasListeners(target)) {
+                        hotspots.add(new ProvisioningHotspot(
+                                ProvisioningHotspot.Kind.LISTENER_IN_PROTOTYPE, consumer, key, cost(key)));
+                    }
+                }
+            }
+        }
+
+        Collections.sort(hotspots, new Comparator<ProvisioningHotspot>() {
+            @Override
+            public int compare(ProvisioningHotspot a, ProvisioningHotspot b) {
+                return Integer.compare(b.getCost(), a.getCost());
+            }
+        });
+        return new ProvisioningReport(hotspots);
+    }
+
+    /**
+     * @return The key provided by a {@code Provider<T>} key, or {@code null} if it's not a provider.
+     */
+    private static Key<?> providedKey(Key<?> key) {
+        Type type = key.getTypeLiteral().getType();
+        if (!(type instanceof ParameterizedType)
+                || !PROVIDER_TYPES.contains(((ParameterizedType)type).getRawType())) {
+            return null;
+        }
+
+        Type providedType = ((ParameterizedType)type).getActualTypeArguments()[0];
+        Annotation annotation = key.getAnnotation();
+        Class<? extends Annotation> annotationType = key.getAnnotationType();
+        if (annotation != null) {
+            return Key.get(providedType, annotation);
+        } else if (annotationType != null) {
+            return Key.get(providedType, annotationType);
+        } else {
+            return Key.get(providedType);
+        }
+    }
+
+    private boolean hasListeners(Binding<?> binding) {
+        for (ProvisionListenerBinding listenerBinding : listenerBindings) {
+            if (listenerBinding.getBindingMatcher().matches(binding)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The estimated number of objects built by one provision of {@code key}.
+     */
+    private int cost(Key<?> key) {
+        Integer cached = costs.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Binding<?> binding = injector.getExistingBinding(key);
+        if (binding == null || Scopes.isSingleton(binding)) {
+            costs.put(key, 0);
+            return 0;
+        }
+
+        // Guard against cycles, which Guice resolves with proxies
+        costs.put(key, 1);
+
+        int cost;
+        if (binding instanceof LinkedKeyBinding) {
+            cost = Math.max(1, cost(((LinkedKeyBinding<?>)binding).getLinkedKey()));
+        } else {
+            cost = 1;
+            if (binding instanceof HasDependencies) {
+                for (Dependency<?> dependency : ((HasDependencies)binding).getDependencies()) {
+                    if (providedKey(dependency.getKey()) == null) {
+                        cost += cost(dependency.getKey());
+                    }
+                }
+            }
+        }
+
+        costs.put(key, cost);
+        return cost;
+    }
+
+    /**
+     * @return Whether a binding is unscoped, following linked bindings to their targets.
+     */
+    private boolean isUnscoped(Binding<?> binding) {
+        while (true) {
+            boolean unscoped = binding.acceptScopingVisitor(UnscopedVisitor.INSTANCE);
+            if (!unscoped || !(binding instanceof LinkedKeyBinding)) {
+                return unscoped;
+            }
+
+            Binding<?> target = injector.getExistingBinding(((LinkedKeyBinding<?>)binding).getLinkedKey());
+            if (target == null) {
+                return true;
+            }
+            binding = target;
+        }
+    }
+
+    /**
+     * Checks whether a binding has no scope at all.
+     */
+    private enum UnscopedVisitor implements BindingScopingVisitor<Boolean> {
+        INSTANCE;
+
+        @Override
+        public Boolean visitEagerSingleton() {
+            return false;
+        }
+
+        @Override
+        public Boolean visitScope(Scope scope) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitNoScoping() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import com.google.inject.Key;
+
+/**
+ * A binding pattern that is likely to be expensive at run time, found by {@link ProvisioningAnalyzer}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class ProvisioningHotspot {
+    /**
+     * The kinds of hotspots.
+     */
+    public enum Kind {
+        /**
+         * An unscoped binding is injected into a singleton through a {@code Provider}, so every call to {@code get()}
+         * builds a new object graph.
+         */
+        PROVIDER_OF_UNSCOPED("is injected into a singleton through a Provider, and builds %d objects per call"),
+        /**
+         * An unscoped collection binding (such as a {@code List} from a {@code ListBinder}) is injected into an
+         * unscoped class, so the collection is rebuilt every time.
+         */
+        COLLECTION_IN_PROTOTYPE("is an unscoped collection injected into a prototype, and builds %d objects each time"),
+        /**
+         * A binding with provision listeners (such as a context-sensitive binding) is injected into an unscoped class,
+         * so the listeners run every time.
+         */
+        LISTENER_IN_PROTOTYPE("has provision listeners and is injected into a prototype, building %d objects each time"),
+        ;
+
+        private final String format;
+
+        private Kind(String format) {
+            this.format = format;
+        }
+    }
+
+    private final Kind kind;
+    private final Key<?> consumer;
+    private final Key<?> dependency;
+    private final int cost;
+
+    ProvisioningHotspot(Kind kind, Key<?> consumer, Key<?> dependency, int cost) {
+        this.kind = kind;
+        this.consumer = consumer;
+        this.dependency = dependency;
+        this.cost = cost;
+    }
+
+    /**
+     * @return The kind of hotspot.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The {@link Key} of the binding with the expensive dependency.
+     */
+    public Key<?> getConsumer() {
+        return consumer;
+    }
+
+    /**
+     * @return The {@link Key} of the expensive dependency.
+     */
+    public Key<?> getDependency() {
+        return dependency;
+    }
+
+    /**
+     * @return The estimated number of objects built each time the dependency is provisioned.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return dependency + " in " + consumer + " " + String.format(kind.format, cost);
+    }
+}
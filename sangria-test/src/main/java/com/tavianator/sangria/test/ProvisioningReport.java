@@ -0,0 +1,64 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.*;
+
+/**
+ * The results of a {@link ProvisioningAnalyzer} run: a list of {@link ProvisioningHotspot}s, most expensive first.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class ProvisioningReport {
+    private final List<ProvisioningHotspot> hotspots;
+
+    ProvisioningReport(List<ProvisioningHotspot> hotspots) {
+        this.hotspots = Collections.unmodifiableList(new ArrayList<>(hotspots));
+    }
+
+    /**
+     * @return The hotspots found, ranked by decreasing cost.
+     */
+    public List<ProvisioningHotspot> getHotspots() {
+        return hotspots;
+    }
+
+    /**
+     * @return Whether no hotspots were found.
+     */
+    public boolean isEmpty() {
+        return hotspots.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (hotspots.isEmpty()) {
+            return "No provisioning hotspots found";
+        }
+
+        StringBuilder builder = new StringBuilder("Provisioning hotspots:");
+        int rank = 0;
+        for (ProvisioningHotspot hotspot : hotspots) {
+            builder.append(String.format(Locale.ROOT, "%n%3d) ", ++rank))
+                    .append(hotspot);
+        }
+        return builder.toString();
+    }
+}
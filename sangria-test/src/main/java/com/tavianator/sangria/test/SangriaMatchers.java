@@ -17,6 +17,10 @@
 
 package com.tavianator.sangria.test;
 
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import org.hamcrest.Matcher;
 
@@ -24,7 +28,7 @@ import org.hamcrest.Matcher;
  * Guice-related Hamcrest matchers.
  *
  * @author Tavian Barnes (tavianator@tavianator.com)
- * @version 1.2
+ * @version 1.4
  * @since 1.2
  */
 public final class SangriaMatchers {
@@ -45,4 +49,67 @@ public final class SangriaMatchers {
     public static Matcher<Module> followsBestPractices() {
         return new BestPracticesMatcher();
     }
+
+    /**
+     * @param time The time budget.
+     * @param unit The unit of {@code time}.
+     * @return A {@link Matcher} that checks whether an {@link Injector} can be created from a {@link Module} within
+     *         the given time.
+     */
+    public static Matcher<Module> createsInjectorWithin(long time, TimeUnit unit) {
+        return new CreationTimeMatcher(time, unit);
+    }
+
+    /**
+     * @param bytes The allocation budget.
+     * @return A {@link Matcher} that checks whether an {@link Injector} can be created from a {@link Module} while
+     *         allocating at most the given number of bytes on the current thread.
+     */
+    public static Matcher<Module> allocatesAtMostDuringCreation(long bytes) {
+        return new CreationAllocationMatcher(bytes);
+    }
+
+    /**
+     * @param key The {@link Key} to provision.
+     * @param time The time budget.
+     * @param unit The unit of {@code time}.
+     * @return A {@link Matcher} that checks whether a {@link Module} can provision the given {@link Key} for the first
+     *         time within the given time.
+     */
+    public static Matcher<Module> provisionsWithin(Key<?> key, long time, TimeUnit unit) {
+        return new ProvisionTimeMatcher(key, time, unit);
+    }
+
+    /**
+     * @return A {@link Matcher} that checks whether a {@link StressReport} saw only a single instance per round, with
+     *         no failures.
+     */
+    public static Matcher<StressReport> singleInstanceUnderStress() {
+        return new StressReportMatcher.SingleInstance();
+    }
+
+    /**
+     * @return A {@link Matcher} that checks whether a {@link StressReport} saw only equal values per round, all of them
+     *         satisfying the {@link StressTester#checking checked} property, with no failures.
+     */
+    public static Matcher<StressReport> consistentUnderStress() {
+        return new StressReportMatcher.Consistent();
+    }
+
+    /**
+     * @param perSecond The minimum number of provisions per second.
+     * @return A {@link Matcher} that checks whether a {@link StressReport} reached the given throughput, with no
+     *         failures.
+     */
+    public static Matcher<StressReport> throughputAtLeast(double perSecond) {
+        return new StressReportMatcher.Throughput(perSecond);
+    }
+
+    /**
+     * @return A {@link Matcher} that checks whether a {@link Module} has no {@link ProvisioningHotspot}s.
+     * @see ProvisioningAnalyzer
+     */
+    public static Matcher<Module> hasNoProvisioningHotspots() {
+        return new HotspotMatcher();
+    }
 }
@@ -0,0 +1,96 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+
+/**
+ * Shares parent {@link Injector}s between test fixtures. Creating an injector for a large application module can
+ * dominate the run time of a test suite; with this class, it's created once, and each test gets a cheap child
+ * injector for its own bindings:
+ *
+ * <pre>
+ * Injector injector = SharedInjectors.createChildInjector(new ApplicationModule(), new TestOverridesModule());
+ * </pre>
+ *
+ * <p>
+ * Parent injectors are cached like {@link CachedElements}: per module instance, or per class for modules without any
+ * instance fields. Each parent injector is created from a fresh recording of its module, so instances it injects are
+ * never shared with the recordings the matchers replay. Since they're shared, parent injectors should hold no per-test
+ * state; in particular, singletons that a test mutates belong in the child injector.
+ * </p>
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class SharedInjectors {
+    private static final Cache<Object, Injector> CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private SharedInjectors() {
+        // Not for instantiating
+    }
+
+    /**
+     * Get the shared {@link Injector} for a {@link Module}, creating it if necessary.
+     *
+     * @param module The module to create the injector from.
+     * @return The shared injector.
+     * @throws CreationException If the injector cannot be created. Failures are not cached.
+     */
+    public static Injector getInjector(final Module module) {
+        try {
+            return CACHE.get(CachedElements.cacheKey(module), new Callable<Injector>() {
+                @Override
+                public Injector call() {
+                    return Guice.createInjector(module);
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    /**
+     * Create a child {@link Injector} of the shared injector for a {@link Module}.
+     *
+     * @param parentModule The module to create (or reuse) the parent injector from.
+     * @param childModules The modules to install in the child injector.
+     * @return A new child injector.
+     * @throws CreationException If either injector cannot be created.
+     */
+    public static Injector createChildInjector(Module parentModule, Module... childModules) {
+        return getInjector(parentModule).createChildInjector(childModules);
+    }
+}
@@ -0,0 +1,209 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.*;
+
+import com.google.inject.Key;
+
+/**
+ * The results of a {@link StressTester} run.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class StressReport {
+    /** The number of failures to keep as a sample. */
+    static final int MAX_FAILURES = 10;
+
+    private final Key<?> key;
+    private final int threads;
+    private final int rounds;
+    private final int iterations;
+    private final long provisions;
+    private final long elapsedNanos;
+    private final int maxDistinctInstances;
+    private final int maxDistinctValues;
+    private final long violations;
+    private final long failureCount;
+    private final List<Throwable> failures;
+
+    private StressReport(Builder builder) {
+        this.key = builder.key;
+        this.threads = builder.threads;
+        this.rounds = builder.rounds;
+        this.iterations = builder.iterations;
+        this.provisions = builder.provisions;
+        this.elapsedNanos = builder.elapsedNanos;
+        this.maxDistinctInstances = builder.maxDistinctInstances;
+        this.maxDistinctValues = builder.maxDistinctValues;
+        this.violations = builder.violations;
+        this.failureCount = builder.failureCount;
+        this.failures = Collections.unmodifiableList(new ArrayList<>(builder.failures));
+    }
+
+    /**
+     * Accumulates the results of each round.
+     */
+    static final class Builder {
+        final Key<?> key;
+        final int threads;
+        final int rounds;
+        final int iterations;
+        long provisions = 0;
+        long elapsedNanos = 0;
+        int maxDistinctInstances = 0;
+        int maxDistinctValues = 0;
+        long violations = 0;
+        long failureCount = 0;
+        final List<Throwable> failures = new ArrayList<>();
+
+        Builder(Key<?> key, int threads, int rounds, int iterations) {
+            this.key = key;
+            this.threads = threads;
+            this.rounds = rounds;
+            this.iterations = iterations;
+        }
+
+        void addElapsedNanos(long nanos) {
+            elapsedNanos += nanos;
+        }
+
+        void addProvisions(long count) {
+            provisions += count;
+        }
+
+        void addViolations(long count) {
+            violations += count;
+        }
+
+        void addFailures(long count, List<Throwable> sample) {
+            failureCount += count;
+            for (Throwable failure : sample) {
+                if (failures.size() >= MAX_FAILURES) {
+                    break;
+                }
+                failures.add(failure);
+            }
+        }
+
+        void addRound(int distinctInstances, int distinctValues) {
+            maxDistinctInstances = Math.max(maxDistinctInstances, distinctInstances);
+            maxDistinctValues = Math.max(maxDistinctValues, distinctValues);
+        }
+
+        StressReport build() {
+            return new StressReport(this);
+        }
+    }
+
+    /**
+     * @return The {@link Key} that was provisioned.
+     */
+    public Key<?> getKey() {
+        return key;
+    }
+
+    /**
+     * @return The number of threads used.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return The number of rounds run.
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return The number of provisions attempted by each thread per round.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return The total number of successful provisions.
+     */
+    public long getProvisions() {
+        return provisions;
+    }
+
+    /**
+     * @return The total time spent provisioning, across all rounds, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The number of successful provisions per second, across all threads.
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? provisions * 1.0e9 / elapsedNanos : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return The largest number of distinct (by identity) instances provisioned in a single round. This is 1 for a
+     *         correct singleton.
+     */
+    public int getMaxDistinctInstances() {
+        return maxDistinctInstances;
+    }
+
+    /**
+     * @return The largest number of distinct (by {@link Object#equals(Object)}) values provisioned in a single round.
+     */
+    public int getMaxDistinctValues() {
+        return maxDistinctValues;
+    }
+
+    /**
+     * @return The number of provisioned instances that failed the {@link StressTester#checking checked} property.
+     */
+    public long getViolations() {
+        return violations;
+    }
+
+    /**
+     * @return The number of provisions that threw an exception.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return A sample of the exceptions thrown during provisioning.
+     */
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "StressReport[%s, threads=%d, rounds=%d, iterations=%d, provisions=%d, throughput=%.0f/s,"
+                        + " maxDistinctInstances=%d, maxDistinctValues=%d, violations=%d, failures=%d]",
+                key, threads, rounds, iterations, provisions, getThroughput(),
+                maxDistinctInstances, maxDistinctValues, violations, failureCount);
+    }
+}
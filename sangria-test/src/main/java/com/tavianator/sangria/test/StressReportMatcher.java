@@ -0,0 +1,115 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.*;
+
+import org.hamcrest.Description;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Matchers for {@link StressReport}s.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+abstract class StressReportMatcher extends TypeSafeDiagnosingMatcher<StressReport> {
+    /**
+     * Matches reports where every round provisioned at most one instance.
+     */
+    static final class SingleInstance extends StressReportMatcher {
+        @Override
+        protected boolean matchesReport(StressReport report, Description mismatchDescription) {
+            if (report.getMaxDistinctInstances() > 1) {
+                mismatchDescription.appendText(report.getMaxDistinctInstances() + " distinct instances in one round");
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("a single instance per round under stress");
+        }
+    }
+
+    /**
+     * Matches reports where every round provisioned equal values, all satisfying the checked property.
+     */
+    static final class Consistent extends StressReportMatcher {
+        @Override
+        protected boolean matchesReport(StressReport report, Description mismatchDescription) {
+            if (report.getViolations() > 0) {
+                mismatchDescription.appendText(report.getViolations() + " instances violated the checked property");
+                return false;
+            } else if (report.getMaxDistinctValues() > 1) {
+                mismatchDescription.appendText(report.getMaxDistinctValues() + " distinct values in one round");
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("consistent values under stress");
+        }
+    }
+
+    /**
+     * Matches reports with at least a minimum throughput.
+     */
+    static final class Throughput extends StressReportMatcher {
+        private final double perSecond;
+
+        Throughput(double perSecond) {
+            this.perSecond = perSecond;
+        }
+
+        @Override
+        protected boolean matchesReport(StressReport report, Description mismatchDescription) {
+            if (report.getThroughput() < perSecond) {
+                mismatchDescription.appendText(
+                        String.format(Locale.ROOT, "throughput was %.0f provisions/s", report.getThroughput()));
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            description.appendText(String.format(Locale.ROOT, "a throughput of at least %.0f provisions/s", perSecond));
+        }
+    }
+
+    @Override
+    protected final boolean matchesSafely(StressReport report, Description mismatchDescription) {
+        // Failed provisions make every other property meaningless
+        if (report.getFailureCount() > 0) {
+            mismatchDescription.appendText(report.getFailureCount() + " provisions failed, e.g. ")
+                    .appendValue(report.getFailures().get(0));
+            return false;
+        }
+        return matchesReport(report, mismatchDescription);
+    }
+
+    /**
+     * Match a report with no failures.
+     */
+    protected abstract boolean matchesReport(StressReport report, Description mismatchDescription);
+}
@@ -0,0 +1,253 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Sets;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Hammers a {@link Key} from many threads at once, to shake out visibility and atomicity bugs in custom providers and
+ * scopes:
+ *
+ * <pre>
+ * StressReport report = StressTester.forKey(Key.get(Expensive.class))
+ *         .withThreads(8)
+ *         .withRounds(100)
+ *         .withIterations(1000)
+ *         .run(new ExpensiveModule());
+ * assertThat(report, is(singleInstanceUnderStress()));
+ * </pre>
+ *
+ * <p>
+ * Each round, every thread is released at once from a common start gate, and then provisions the key {@code
+ * iterations} times. {@link #run(Module...)} creates a fresh {@link Injector} for every round, so races on first
+ * provision (the interesting ones for scopes like {@code @LazySingleton}) are exercised repeatedly; {@link
+ * #run(Injector)} shares one injector for all rounds. Custom properties, such as the context seen by a
+ * context-sensitive binding, can be verified for every provisioned instance with {@link #checking(Predicate)}.
+ * </p>
+ *
+ * @param <T> The type of object to provision.
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public final class StressTester<T> {
+    private final Key<T> key;
+    private final int threads;
+    private final int rounds;
+    private final int iterations;
+    private final Predicate<? super T> check;
+
+    private StressTester(Key<T> key, int threads, int rounds, int iterations, Predicate<? super T> check) {
+        this.key = key;
+        this.threads = threads;
+        this.rounds = rounds;
+        this.iterations = iterations;
+        this.check = check;
+    }
+
+    /**
+     * Create a {@link StressTester} for a {@link Key}. By default, it uses as many threads as there are available
+     * processors, for 10 rounds of 100 iterations each.
+     *
+     * @param key The key to provision.
+     * @param <T> The type of object to provision.
+     * @return A {@link StressTester} for the given key.
+     */
+    public static <T> StressTester<T> forKey(Key<T> key) {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        return new StressTester<>(key, threads, 10, 100, Predicates.alwaysTrue());
+    }
+
+    /**
+     * @param threads The number of threads to provision from concurrently.
+     * @return A copy of this tester using the given number of threads.
+     */
+    public StressTester<T> withThreads(int threads) {
+        checkArgument(threads > 0, "threads must be positive");
+        return new StressTester<>(key, threads, rounds, iterations, check);
+    }
+
+    /**
+     * @param rounds The number of rounds to run.
+     * @return A copy of this tester running the given number of rounds.
+     */
+    public StressTester<T> withRounds(int rounds) {
+        checkArgument(rounds > 0, "rounds must be positive");
+        return new StressTester<>(key, threads, rounds, iterations, check);
+    }
+
+    /**
+     * @param iterations The number of times each thread provisions the key per round.
+     * @return A copy of this tester using the given number of iterations.
+     */
+    public StressTester<T> withIterations(int iterations) {
+        checkArgument(iterations > 0, "iterations must be positive");
+        return new StressTester<>(key, threads, rounds, iterations, check);
+    }
+
+    /**
+     * @param check A property that every provisioned instance must satisfy. Violations are counted in the {@link
+     *              StressReport}.
+     * @return A copy of this tester checking the given property.
+     */
+    public StressTester<T> checking(Predicate<? super T> check) {
+        return new StressTester<>(key, threads, rounds, iterations, checkNotNull(check));
+    }
+
+    /**
+     * Run the stress test, creating a fresh {@link Injector} for every round. The modules are configured again for each
+     * injector, rather than replayed from a recording, so that scopes and provider instances created during
+     * configuration aren't shared between rounds.
+     *
+     * @param modules The modules to create the injectors from.
+     * @return A report of the results.
+     */
+    public StressReport run(Module... modules) {
+        return run(Arrays.asList(modules), null);
+    }
+
+    /**
+     * Run the stress test, sharing the given {@link Injector} for every round.
+     *
+     * @param injector The injector to provision from.
+     * @return A report of the results.
+     */
+    public StressReport run(Injector injector) {
+        return run(null, checkNotNull(injector));
+    }
+
+    private StressReport run(List<Module> modules, Injector sharedInjector) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            StressReport.Builder report = new StressReport.Builder(key, threads, rounds, iterations);
+            for (int i = 0; i < rounds; ++i) {
+                Injector injector = sharedInjector != null ? sharedInjector : Guice.createInjector(modules);
+                runRound(executor, injector.getProvider(key), report);
+            }
+            return report.build();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runRound(ExecutorService executor, final Provider<T> provider, StressReport.Builder report) {
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; ++i) {
+            futures.add(executor.submit(new Callable<Worker>() {
+                @Override
+                public Worker call() throws InterruptedException {
+                    Worker worker = new Worker();
+                    ready.countDown();
+                    start.await();
+                    worker.run(provider);
+                    return worker;
+                }
+            }));
+        }
+
+        Set<Object> instances = Sets.newIdentityHashSet();
+        Set<Object> values = new HashSet<>();
+        try {
+            ready.await();
+            long startTime = System.nanoTime();
+            start.countDown();
+
+            List<Worker> workers = new ArrayList<>();
+            for (Future<Worker> future : futures) {
+                workers.add(future.get());
+            }
+            report.addElapsedNanos(System.nanoTime() - startTime);
+
+            for (Worker worker : workers) {
+                instances.addAll(worker.instances);
+                values.addAll(worker.values);
+                report.addProvisions(worker.provisions);
+                report.addViolations(worker.violations);
+                report.addFailures(worker.failureCount, worker.failures);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during stress test", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Stress test worker failed", e.getCause());
+        }
+
+        report.addRound(instances.size(), values.size());
+    }
+
+    /**
+     * The state of a single thread during a round.
+     */
+    private class Worker {
+        final Set<Object> instances = Sets.newIdentityHashSet();
+        final Set<Object> values = new HashSet<>();
+        final List<Throwable> failures = new ArrayList<>();
+        long provisions = 0;
+        long violations = 0;
+        long failureCount = 0;
+
+        void run(Provider<T> provider) {
+            for (int i = 0; i < iterations; ++i) {
+                T instance;
+                try {
+                    instance = provider.get();
+                } catch (RuntimeException | Error e) {
+                    ++failureCount;
+                    if (failures.size() < StressReport.MAX_FAILURES) {
+                        failures.add(e);
+                    }
+                    continue;
+                }
+
+                ++provisions;
+                if (instance != null) {
+                    instances.add(instance);
+                    values.add(instance);
+                }
+                if (!check.apply(instance)) {
+                    ++violations;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StressTester[%s, threads=%d, rounds=%d, iterations=%d]", key, threads, rounds, iterations);
+    }
+}
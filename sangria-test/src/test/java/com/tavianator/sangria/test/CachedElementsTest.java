@@ -0,0 +1,193 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CachedElements} and {@link SharedInjectors}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class CachedElementsTest {
+    private static final AtomicInteger STATELESS_COUNT = new AtomicInteger();
+
+    private static class StatelessModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            STATELESS_COUNT.incrementAndGet();
+            bind(String.class)
+                    .toInstance("stateless");
+        }
+    }
+
+    private static class StatefulModule extends AbstractModule {
+        private final String value;
+        private int count = 0;
+
+        StatefulModule(String value) {
+            this.value = value;
+        }
+
+        @Override
+        protected void configure() {
+            ++count;
+            bind(String.class)
+                    .toInstance(value);
+        }
+    }
+
+    private static class SharedModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(Object.class)
+                    .toInstance(new Object());
+        }
+    }
+
+    private static class LookupModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(String.class)
+                    .toInstance("lookup");
+            bind(CharSequence.class)
+                    .toProvider(getProvider(String.class));
+        }
+    }
+
+    private static class InjectorProvider implements Provider<Object> {
+        @Inject Injector injector;
+
+        @Override
+        public Object get() {
+            return injector;
+        }
+    }
+
+    private static class ProviderInstanceModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(Object.class)
+                    .toProvider(new InjectorProvider());
+        }
+    }
+
+    private static class InjectedInstance {
+        @Inject Injector injector;
+    }
+
+    private static class InjectedInstanceModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(InjectedInstance.class)
+                    .toInstance(new InjectedInstance());
+        }
+    }
+
+    @Test
+    public void testStatelessModule() {
+        int before = STATELESS_COUNT.get();
+        CachedElements.getElements(new StatelessModule());
+        CachedElements.getElements(new StatelessModule());
+        assertThat(STATELESS_COUNT.get(), lessThanOrEqualTo(before + 1));
+
+        Injector injector = Guice.createInjector(CachedElements.getModule(new StatelessModule()));
+        assertThat(injector.getInstance(String.class), equalTo("stateless"));
+    }
+
+    @Test
+    public void testStatefulModule() {
+        StatefulModule foo = new StatefulModule("foo");
+        StatefulModule bar = new StatefulModule("bar");
+
+        assertThat(CachedElements.getElements(foo), sameInstance(CachedElements.getElements(foo)));
+        assertThat(foo.count, equalTo(1));
+
+        Injector fooInjector = Guice.createInjector(CachedElements.getModule(foo));
+        Injector barInjector = Guice.createInjector(CachedElements.getModule(bar));
+        assertThat(fooInjector.getInstance(String.class), equalTo("foo"));
+        assertThat(barInjector.getInstance(String.class), equalTo("bar"));
+        assertThat(bar.count, equalTo(1));
+    }
+
+    @Test
+    public void testLookupModule() {
+        LookupModule module = new LookupModule();
+        assertThat(CachedElements.getElements(module), not(sameInstance(CachedElements.getElements(module))));
+
+        Injector injector1 = Guice.createInjector(CachedElements.getModule(module));
+        Injector injector2 = Guice.createInjector(CachedElements.getModule(module));
+        assertThat(injector1.getInstance(CharSequence.class), equalTo((CharSequence)"lookup"));
+        assertThat(injector2.getInstance(CharSequence.class), equalTo((CharSequence)"lookup"));
+    }
+
+    @Test
+    public void testProviderInstanceModule() {
+        ProviderInstanceModule module = new ProviderInstanceModule();
+        assertThat(CachedElements.getElements(module), not(sameInstance(CachedElements.getElements(module))));
+
+        Injector injector1 = Guice.createInjector(CachedElements.getModule(module));
+        Injector injector2 = Guice.createInjector(CachedElements.getModule(module));
+        assertThat(injector1.getInstance(Object.class), sameInstance((Object)injector1));
+        assertThat(injector2.getInstance(Object.class), sameInstance((Object)injector2));
+    }
+
+    @Test
+    public void testInjectedInstanceModule() {
+        InjectedInstanceModule module = new InjectedInstanceModule();
+        assertThat(CachedElements.getElements(module), not(sameInstance(CachedElements.getElements(module))));
+
+        Injector injector1 = Guice.createInjector(CachedElements.getModule(module));
+        Injector injector2 = Guice.createInjector(CachedElements.getModule(module));
+        assertThat(injector1.getInstance(InjectedInstance.class).injector, sameInstance(injector1));
+        assertThat(injector2.getInstance(InjectedInstance.class).injector, sameInstance(injector2));
+    }
+
+    @Test
+    public void testSharedInjectorsNotRewired() {
+        Injector parent = SharedInjectors.getInjector(new ProviderInstanceModule());
+        Guice.createInjector(CachedElements.getModule(new ProviderInstanceModule()));
+        assertThat(parent.getInstance(Object.class), sameInstance((Object)parent));
+    }
+
+    @Test
+    public void testSharedInjectors() {
+        Injector parent = SharedInjectors.getInjector(new SharedModule());
+        assertThat(SharedInjectors.getInjector(new SharedModule()), sameInstance(parent));
+
+        Injector child1 = SharedInjectors.createChildInjector(new SharedModule(), new StatelessModule());
+        Injector child2 = SharedInjectors.createChildInjector(new SharedModule(), new StatefulModule("child"));
+        assertThat(child1.getParent(), sameInstance(parent));
+        assertThat(child2.getParent(), sameInstance(parent));
+        assertThat(child1.getInstance(Object.class), sameInstance(child2.getInstance(Object.class)));
+        assertThat(child1.getInstance(String.class), equalTo("stateless"));
+        assertThat(child2.getInstance(String.class), equalTo("child"));
+    }
+}
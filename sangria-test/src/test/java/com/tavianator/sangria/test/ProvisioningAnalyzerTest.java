@@ -0,0 +1,157 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.*;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.TypeLiteral;
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.spi.ProvisionListener;
+import org.junit.Test;
+
+import static com.tavianator.sangria.test.SangriaMatchers.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ProvisioningAnalyzer}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class ProvisioningAnalyzerTest {
+    private static class Part {
+        @Inject
+        Part() {
+        }
+    }
+
+    private static class Heavy {
+        @Inject
+        Heavy(Part a, Part b) {
+        }
+    }
+
+    @Singleton
+    private static class Shared {
+        @Inject
+        Shared() {
+        }
+    }
+
+    @Singleton
+    private static class LoopingSingleton {
+        @Inject Provider<Heavy> heavy;
+        @Inject Provider<Shared> shared;
+    }
+
+    private static class ListPrototype {
+        @Inject List<String> list;
+    }
+
+    private static class Listened {
+        @Inject
+        Listened() {
+        }
+    }
+
+    private static class ListenedPrototype {
+        @Inject Listened listened;
+        @Inject Shared shared;
+    }
+
+    private static class HotModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(LoopingSingleton.class);
+            bind(ListPrototype.class);
+            bind(ListenedPrototype.class);
+            bind(Listened.class);
+
+            final Key<Listened> listenedKey = Key.get(Listened.class);
+            bindListener(
+                    new AbstractMatcher<Binding<?>>() {
+                        @Override
+                        public boolean matches(Binding<?> binding) {
+                            return binding.getKey().equals(listenedKey);
+                        }
+                    },
+                    new ProvisionListener() {
+                        @Override
+                        public <T> void onProvision(ProvisionInvocation<T> provision) {
+                        }
+                    });
+        }
+
+        @Provides
+        List<String> provideList(Part part) {
+            return Collections.singletonList("list");
+        }
+    }
+
+    private static class ColdModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(Heavy.class).in(Singleton.class);
+            bind(LoopingSingleton.class);
+            bind(ListenedPrototype.class);
+            bind(Listened.class).in(Singleton.class);
+        }
+    }
+
+    @Test
+    public void testHotspots() {
+        ProvisioningReport report = ProvisioningAnalyzer.analyze(new HotModule());
+        List<ProvisioningHotspot> hotspots = report.getHotspots();
+        assertThat(hotspots, hasSize(3));
+
+        ProvisioningHotspot first = hotspots.get(0);
+        assertThat(first.getKind(), equalTo(ProvisioningHotspot.Kind.PROVIDER_OF_UNSCOPED));
+        assertThat(first.getConsumer(), equalTo((Key) Key.get(LoopingSingleton.class)));
+        assertThat(first.getDependency(), equalTo((Key) Key.get(Heavy.class)));
+        assertThat(first.getCost(), equalTo(3));
+
+        ProvisioningHotspot second = hotspots.get(1);
+        assertThat(second.getKind(), equalTo(ProvisioningHotspot.Kind.COLLECTION_IN_PROTOTYPE));
+        assertThat(second.getConsumer(), equalTo((Key) Key.get(ListPrototype.class)));
+        assertThat(second.getDependency(), equalTo((Key) Key.get(new TypeLiteral<List<String>>() { })));
+        assertThat(second.getCost(), equalTo(2));
+
+        ProvisioningHotspot third = hotspots.get(2);
+        assertThat(third.getKind(), equalTo(ProvisioningHotspot.Kind.LISTENER_IN_PROTOTYPE));
+        assertThat(third.getConsumer(), equalTo((Key) Key.get(ListenedPrototype.class)));
+        assertThat(third.getDependency(), equalTo((Key) Key.get(Listened.class)));
+        assertThat(third.getCost(), equalTo(1));
+
+        assertThat(new HotModule(), is(not(hasNoProvisioningHotspots())));
+    }
+
+    @Test
+    public void testNoHotspots() {
+        assertThat(ProvisioningAnalyzer.analyze(new ColdModule()).isEmpty(), is(true));
+        assertThat(new ColdModule(), hasNoProvisioningHotspots());
+    }
+}
@@ -17,11 +17,16 @@
 
 package com.tavianator.sangria.test;
 
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.Module;
 import com.google.inject.Provides;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
 import org.junit.Test;
 
 import static com.tavianator.sangria.test.SangriaMatchers.*;
@@ -105,4 +110,64 @@ public class SangriaMatchersTest {
         assertThat(new InexactBindingAnnotationModule(), not(followsBestPractices()));
         assertThat(new JustInTimeModule(), not(followsBestPractices()));
     }
+
+    private static class SlowModule extends AbstractModule {
+        @Override
+        protected void configure() {
+        }
+
+        @Provides
+        String getString() throws InterruptedException {
+            Thread.sleep(50);
+            return "slow";
+        }
+    }
+
+    private static class BrokenModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(Runnable.class);
+        }
+    }
+
+    @Test
+    public void testCreatesInjectorWithin() {
+        assertThat(new AtomicModule(), createsInjectorWithin(1, TimeUnit.DAYS));
+        assertThat(new AtomicModule(), not(createsInjectorWithin(0, TimeUnit.NANOSECONDS)));
+        assertThat(new BrokenModule(), not(createsInjectorWithin(1, TimeUnit.DAYS)));
+    }
+
+    @Test
+    public void testAllocatesAtMostDuringCreation() {
+        assertThat(new AtomicModule(), allocatesAtMostDuringCreation(Long.MAX_VALUE));
+        assertThat(new AtomicModule(), not(allocatesAtMostDuringCreation(0)));
+    }
+
+    @Test
+    public void testProvisionsWithin() {
+        Key<String> key = Key.get(String.class);
+        assertThat(new SlowModule(), provisionsWithin(key, 1, TimeUnit.DAYS));
+        assertThat(new SlowModule(), not(provisionsWithin(key, 1, TimeUnit.MILLISECONDS)));
+    }
+
+    private static class CountingModule extends AbstractModule {
+        int configured = 0;
+
+        @Override
+        protected void configure() {
+            ++configured;
+        }
+    }
+
+    @Test
+    public void testMeasuredOnce() {
+        CountingModule module = new CountingModule();
+        Matcher<Module> matcher = createsInjectorWithin(0, TimeUnit.NANOSECONDS);
+        assertThat(matcher.matches(module), is(false));
+
+        StringDescription description = new StringDescription();
+        matcher.describeMismatch(module, description);
+        assertThat(description.toString(), startsWith("took "));
+        assertThat(module.configured, equalTo(1));
+    }
 }
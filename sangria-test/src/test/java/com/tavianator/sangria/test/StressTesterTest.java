@@ -0,0 +1,157 @@
+/****************************************************************************
+ * Sangria                                                                  *
+ * Copyright (C) 2014 Tavian Barnes <tavianator@tavianator.com>             *
+ *                                                                          *
+ * Licensed under the Apache License, Version 2.0 (the "License");          *
+ * you may not use this file except in compliance with the License.         *
+ * You may obtain a copy of the License at                                  *
+ *                                                                          *
+ * http://www.apache.org/licenses/LICENSE-2.0                               *
+ *                                                                          *
+ * Unless required by applicable law or agreed to in writing, software      *
+ * distributed under the License is distributed on an "AS IS" BASIS,        *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. *
+ * See the License for the specific language governing permissions and      *
+ * limitations under the License.                                           *
+ ****************************************************************************/
+
+package com.tavianator.sangria.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Singleton;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
+import org.junit.Test;
+
+import static com.tavianator.sangria.test.SangriaMatchers.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StressTester}.
+ *
+ * @author Tavian Barnes (tavianator@tavianator.com)
+ * @version 1.4
+ * @since 1.4
+ */
+public class StressTesterTest {
+    private static class Counted {
+        private static final AtomicInteger COUNT = new AtomicInteger();
+
+        final int id = COUNT.incrementAndGet();
+    }
+
+    private static class SingletonModule extends AbstractModule {
+        @Override
+        protected void configure() {
+        }
+
+        @Provides
+        @Singleton
+        Counted provideCounted() {
+            return new Counted();
+        }
+    }
+
+    private static class UnscopedModule extends AbstractModule {
+        @Override
+        protected void configure() {
+        }
+
+        @Provides
+        Counted provideCounted() {
+            return new Counted();
+        }
+    }
+
+    private static class MemoizingModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            final Supplier<Counted> supplier = Suppliers.memoize(new Supplier<Counted>() {
+                @Override
+                public Counted get() {
+                    return new Counted();
+                }
+            });
+            bind(Counted.class).toProvider(new Provider<Counted>() {
+                @Override
+                public Counted get() {
+                    return supplier.get();
+                }
+            });
+        }
+    }
+
+    private static class FailingModule extends AbstractModule {
+        @Override
+        protected void configure() {
+        }
+
+        @Provides
+        Counted provideCounted() {
+            throw new IllegalStateException("Oops");
+        }
+    }
+
+    private static final StressTester<Counted> TESTER = StressTester.forKey(Key.get(Counted.class))
+            .withThreads(4)
+            .withRounds(5)
+            .withIterations(50);
+
+    @Test
+    public void testSingleton() {
+        StressReport report = TESTER.run(new SingletonModule());
+        assertThat(report, is(singleInstanceUnderStress()));
+        assertThat(report, is(consistentUnderStress()));
+        assertThat(report.getProvisions(), equalTo(4L * 5 * 50));
+        assertThat(report.getThroughput(), greaterThan(0.0));
+        assertThat(report, is(throughputAtLeast(1.0)));
+    }
+
+    @Test
+    public void testUnscoped() {
+        StressReport report = TESTER.run(new UnscopedModule());
+        assertThat(report, is(not(singleInstanceUnderStress())));
+        assertThat(report.getMaxDistinctInstances(), equalTo(4 * 50));
+    }
+
+    @Test
+    public void testFreshModulePerRound() {
+        // Provider instances created by configure() must not leak from one round into the next
+        int before = Counted.COUNT.get();
+        StressReport report = TESTER.run(new MemoizingModule());
+        assertThat(report, is(singleInstanceUnderStress()));
+        assertThat(Counted.COUNT.get() - before, equalTo(5));
+    }
+
+    @Test
+    public void testSharedInjector() {
+        final Counted singleton = Guice.createInjector(new SingletonModule()).getInstance(Counted.class);
+        StressReport report = TESTER
+                .checking(new Predicate<Counted>() {
+                    @Override
+                    public boolean apply(Counted input) {
+                        return input.id == singleton.id;
+                    }
+                })
+                .run(Guice.createInjector(new SingletonModule()));
+        assertThat(report, is(not(consistentUnderStress())));
+        assertThat(report.getViolations(), equalTo(report.getProvisions()));
+    }
+
+    @Test
+    public void testFailures() {
+        StressReport report = TESTER.run(new FailingModule());
+        assertThat(report, is(not(singleInstanceUnderStress())));
+        assertThat(report.getProvisions(), equalTo(0L));
+        assertThat(report.getFailureCount(), equalTo(4L * 5 * 50));
+        assertThat(report.getFailures(), hasSize(StressReport.MAX_FAILURES));
+    }
+}